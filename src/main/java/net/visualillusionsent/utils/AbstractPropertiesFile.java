@@ -18,11 +18,22 @@
 package net.visualillusionsent.utils;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -51,7 +62,67 @@ public abstract class AbstractPropertiesFile {
     protected Map<String, String> inlineCom;
     protected List<String> header;
     protected List<String> footer;
-    protected boolean hasChanged;
+    protected volatile boolean hasChanged;
+    /** The options used to load the file */
+    protected final Set<LoadOption> loadOptions;
+    /** Property Handles by key, created with the first handle; held weakly, so a handle that is no longer used is dropped */
+    private volatile ConcurrentHashMap<String, CopyOnWriteArrayList<WeakReference<PropertyHandle>>> handles;
+    /** Objects decoded by codecs by key, created with the first one */
+    private volatile ConcurrentHashMap<String, Decoded> decoded;
+    /* Sorted keys for prefix lookups, rebuilt on first use after keys were added or removed */
+    private volatile KeyIndex keyIndex;
+    private final AtomicInteger keyVersion = new AtomicInteger();
+
+    /** An object decoded from a value, valid for as long as the key still holds that exact String */
+    private static final class Decoded {
+        private final String value;
+        private final PropertyCodec<?> codec;
+        private final Object decoded;
+
+        private Decoded(String value, PropertyCodec<?> codec, Object decoded) {
+            this.value = value;
+            this.codec = codec;
+            this.decoded = decoded;
+        }
+    }
+
+    /** The keys as of one version of the key set */
+    private static final class KeyIndex {
+        private final int version;
+        private final String[] keys;
+
+        private KeyIndex(int version, String[] keys) {
+            this.version = version;
+            this.keys = keys;
+        }
+    }
+
+    /** Options for how a Properties File is loaded from disk */
+    public enum LoadOption {
+        /**
+         * Memory maps the file and decodes it straight from the mapped buffer instead of going through streams<br>
+         * Has no effect for Properties Files inside of Zip/Jar files.<br>
+         * <b>NOTE:</b> Some platforms (ie: Windows) keep a mapped file locked until the mapping is garbage collected
+         */
+        MEMORY_MAPPED, //
+        /**
+         * Only indexes the byte offsets of each entry while loading, decoding values and comments the first time they are read<br>
+         * Used by {@link UnmodifiablePropertiesFile}, which keeps the raw file contents in memory instead of a String for every part
+         */
+        LAZY, //
+        /**
+         * Keeps a binary snapshot of the parsed file next to it, named like the file with .bin appended<br>
+         * The snapshot is written after the file is scanned or saved and is loaded instead of scanning the text for as long as
+         * the length, modification time and checksum of the file still match it. Used by {@link PropertiesFile}
+         */
+        SNAPSHOT, //
+        /**
+         * Shares keys and short values with every other file loaded with this option through one pool, instead of each file
+         * holding its own copies<br>
+         * Meant for many files with the same keys, such as language files. Used by {@link UnmodifiablePropertiesFile}
+         */
+        DEDUPLICATE, //
+    }
 
     /**
      * Creates or loads a Properties File
@@ -60,11 +131,25 @@ public abstract class AbstractPropertiesFile {
      *         the path to the properties file
      */
     public AbstractPropertiesFile(final String filePath) {
+        this(filePath, new LoadOption[0]);
+    }
+
+    /**
+     * Creates or loads a Properties File
+     *
+     * @param filePath
+     *         the path to the properties file
+     * @param options
+     *         the {@link LoadOption}s to load the file with
+     */
+    public AbstractPropertiesFile(final String filePath, LoadOption... options) {
         notNull(filePath, "String filePath");
         notEmpty(filePath, "String filePath");
+        notNull(options, "LoadOption... options");
 
         this.filePath = filePath;
         propsFile = new File(filePath);
+        loadOptions = toSet(options);
     }
 
     /**
@@ -74,13 +159,27 @@ public abstract class AbstractPropertiesFile {
      *         the file to read as a PropertiesFile
      */
     public AbstractPropertiesFile(File file) {
+        this(file, new LoadOption[0]);
+    }
+
+    /**
+     * Creates or loads a Properties File
+     *
+     * @param file
+     *         the file to read as a PropertiesFile
+     * @param options
+     *         the {@link LoadOption}s to load the file with
+     */
+    public AbstractPropertiesFile(File file, LoadOption... options) {
         notNull(file, "File file");
+        notNull(options, "LoadOption... options");
         if (!file.exists() || file.isDirectory()) {
             throw new IllegalArgumentException("File for properties is non-existent or a directory");
         }
 
         this.filePath = file.getAbsolutePath();
         propsFile = file;
+        loadOptions = toSet(options);
     }
 
     /**
@@ -92,8 +191,23 @@ public abstract class AbstractPropertiesFile {
      *         the name of the file inside of the zip/jar
      */
     public AbstractPropertiesFile(String zipPath, String entry) {
+        this(zipPath, entry, new LoadOption[0]);
+    }
+
+    /**
+     * Loads a PropertiesFile stored inside a Zip/Jar file
+     *
+     * @param zipPath
+     *         the path to the Zip/Jar file
+     * @param entry
+     *         the name of the file inside of the zip/jar
+     * @param options
+     *         the {@link LoadOption}s to load the file with
+     */
+    public AbstractPropertiesFile(String zipPath, String entry, LoadOption... options) {
         notNull(zipPath, "String zipPath");
         notNull(entry, "String entry");
+        notNull(options, "LoadOption... options");
         notEmpty(zipPath, "String jarPath");
         notEmpty(entry, "String entry");
 
@@ -106,6 +220,7 @@ public abstract class AbstractPropertiesFile {
         ZipEntry ent = zip.getEntry(entry);
         entryExists(ent, entry);
         filePath = entry;
+        loadOptions = toSet(options);
     }
 
     /**
@@ -116,6 +231,26 @@ public abstract class AbstractPropertiesFile {
      */
     protected abstract void load(InputStream inStream);
 
+    /**
+     * Memory maps the whole backing file read-only<br>
+     * The mapping stays valid after the underlying channel is closed.
+     *
+     * @return the mapped file contents
+     *
+     * @throws IOException
+     *         if the file could not be opened or mapped
+     */
+    protected final MappedByteBuffer mapFile() throws IOException {
+        FileInputStream in = new FileInputStream(propsFile);
+        try {
+            FileChannel channel = in.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        finally {
+            in.close();
+        }
+    }
+
     /**
      * Reloads the PropertiesFile from its source
      */
@@ -1524,6 +1659,365 @@ public abstract class AbstractPropertiesFile {
      */
     protected abstract String getInlineComment(String key);
 
+    /**
+     * Gets a handle to a {@code String} value, see {@link PropertyHandle}
+     *
+     * @param key
+     *         the property key
+     * @param def
+     *         the value of the handle while the key is missing
+     *
+     * @return the handle
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    public final PropertyHandle.StringProperty stringHandle(String key, String def) {
+        notNull(def, "String def");
+        return register(new PropertyHandle.StringProperty(this, checked(key), def));
+    }
+
+    /**
+     * Gets a handle to an {@code int} value, see {@link PropertyHandle}
+     *
+     * @param key
+     *         the property key
+     * @param def
+     *         the value of the handle while the key is missing or not a number
+     *
+     * @return the handle
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    public final PropertyHandle.IntProperty intHandle(String key, int def) {
+        return register(new PropertyHandle.IntProperty(this, checked(key), def));
+    }
+
+    /**
+     * Gets a handle to a {@code long} value, see {@link PropertyHandle}
+     *
+     * @param key
+     *         the property key
+     * @param def
+     *         the value of the handle while the key is missing or not a number
+     *
+     * @return the handle
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    public final PropertyHandle.LongProperty longHandle(String key, long def) {
+        return register(new PropertyHandle.LongProperty(this, checked(key), def));
+    }
+
+    /**
+     * Gets a handle to a {@code double} value, see {@link PropertyHandle}
+     *
+     * @param key
+     *         the property key
+     * @param def
+     *         the value of the handle while the key is missing or not a number
+     *
+     * @return the handle
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    public final PropertyHandle.DoubleProperty doubleHandle(String key, double def) {
+        return register(new PropertyHandle.DoubleProperty(this, checked(key), def));
+    }
+
+    /**
+     * Gets a handle to a {@code boolean} value, see {@link PropertyHandle}
+     *
+     * @param key
+     *         the property key
+     * @param def
+     *         the value of the handle while the key is missing
+     *
+     * @return the handle
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    public final PropertyHandle.BooleanProperty booleanHandle(String key, boolean def) {
+        return register(new PropertyHandle.BooleanProperty(this, checked(key), def));
+    }
+
+    /**
+     * Stops updating a handle, its value no longer changes<br>
+     * Handles are only held weakly, so one that is no longer referenced is dropped without being released,
+     * but releasing it stops the updates right away.
+     *
+     * @param handle
+     *         the handle to release
+     */
+    public final void releaseHandle(PropertyHandle handle) {
+        ConcurrentHashMap<String, CopyOnWriteArrayList<WeakReference<PropertyHandle>>> registered = handles;
+        if (handle != null && registered != null) {
+            CopyOnWriteArrayList<WeakReference<PropertyHandle>> keyed = registered.get(handle.key);
+            if (keyed != null) {
+                for (WeakReference<PropertyHandle> reference : keyed) {
+                    PropertyHandle held = reference.get();
+                    if (held == handle || held == null) {
+                        keyed.remove(reference);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets a value decoded by a {@link PropertyCodec}
+     * <p/>
+     * The decoded object is cached until the value changes, so reading it again costs one lookup instead of decoding it again.
+     *
+     * @param key
+     *         the property key
+     * @param codec
+     *         the codec to decode the value with
+     * @param <T>
+     *         the decoded type
+     *
+     * @return the decoded value
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code codec} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty or the value can not be decoded
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public final <T> T get(String key, PropertyCodec<T> codec) {
+        notNull(codec, "PropertyCodec codec");
+        String value = getString(key);
+        ConcurrentHashMap<String, Decoded> cache = decodedCache();
+        Decoded cached = cache.get(key);
+        if (cached != null && cached.value == value && cached.codec == codec) { // Same String, so never stale
+            return (T) cached.decoded;
+        }
+        T decoded = codec.decode(value);
+        cache.put(key, new Decoded(value, codec, decoded));
+        return decoded;
+    }
+
+    /**
+     * Gets a value decoded by a {@link PropertyCodec}, or a default if the key is missing or can not be decoded<br>
+     * The default is not stored
+     *
+     * @param key
+     *         the property key
+     * @param codec
+     *         the codec to decode the value with
+     * @param def
+     *         the default value
+     * @param <T>
+     *         the decoded type
+     *
+     * @return the decoded value or the default
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code codec} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    public final <T> T get(String key, PropertyCodec<T> codec, T def) {
+        if (containsKey(key)) {
+            try {
+                return get(key, codec);
+            }
+            catch (UnknownPropertyException upex) {
+                // Removed in the meantime
+            }
+            catch (IllegalArgumentException iaex) {
+                // Continue with default
+            }
+        }
+        return def;
+    }
+
+    /**
+     * Sets a value encoded by a {@link PropertyCodec}, the object is cached as the decoded value
+     *
+     * @param key
+     *         the property key
+     * @param value
+     *         the object to encode
+     * @param codec
+     *         the codec to encode the value with
+     * @param comment
+     *         the comments to add
+     * @param <T>
+     *         the decoded type
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key}, {@code value} or {@code codec} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws java.lang.UnsupportedOperationException
+     *         if the Properties File can not be changed
+     */
+    public final <T> void set(String key, T value, PropertyCodec<T> codec, String... comment) {
+        notNull(value, "T value");
+        notNull(codec, "PropertyCodec codec");
+        String encoded = codec.encode(value);
+        setString(key, encoded, comment);
+        String current;
+        try {
+            current = getString(key);
+        }
+        catch (UnknownPropertyException upex) {
+            return; // Removed in the meantime
+        }
+        // Only cached while another writer has not changed the value yet; an entry is only ever used for the exact String
+        // it holds, so one that a later write beats to the cache is never returned for the new value
+        if (current != null && current.equals(encoded)) {
+            decodedCache().put(key, new Decoded(current, codec, value));
+        }
+    }
+
+    private ConcurrentHashMap<String, Decoded> decodedCache() {
+        ConcurrentHashMap<String, Decoded> cache = decoded;
+        if (cache == null) {
+            synchronized (this) {
+                cache = decoded;
+                if (cache == null) {
+                    cache = decoded = new ConcurrentHashMap<String, Decoded>();
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Drops the decoded objects and updates the handles of a key, to be called after its value has been set or removed
+     *
+     * @param key
+     *         the changed key
+     */
+    protected final void valueChanged(String key) {
+        ConcurrentHashMap<String, Decoded> cache = decoded;
+        if (cache != null) {
+            cache.remove(key);
+        }
+        ConcurrentHashMap<String, CopyOnWriteArrayList<WeakReference<PropertyHandle>>> registered = handles;
+        if (registered != null) {
+            CopyOnWriteArrayList<WeakReference<PropertyHandle>> keyed = registered.get(key);
+            if (keyed != null) {
+                refresh(keyed);
+            }
+        }
+    }
+
+    /** Drops all decoded objects and updates all handles, to be called after the file has been reloaded */
+    protected final void valuesChanged() {
+        ConcurrentHashMap<String, Decoded> cache = decoded;
+        if (cache != null) {
+            cache.clear();
+        }
+        ConcurrentHashMap<String, CopyOnWriteArrayList<WeakReference<PropertyHandle>>> registered = handles;
+        if (registered != null) {
+            for (CopyOnWriteArrayList<WeakReference<PropertyHandle>> keyed : registered.values()) {
+                refresh(keyed);
+            }
+        }
+    }
+
+    /** Updates the handles of a key, dropping those that are no longer referenced */
+    private static void refresh(CopyOnWriteArrayList<WeakReference<PropertyHandle>> keyed) {
+        for (WeakReference<PropertyHandle> reference : keyed) {
+            PropertyHandle handle = reference.get();
+            if (handle != null) {
+                handle.refresh();
+            }
+            else {
+                keyed.remove(reference);
+            }
+        }
+    }
+
+    /**
+     * Gets a view of the properties whose keys start with a prefix, such as {@code "db.pool."}
+     * <p/>
+     * The view reads through to this Properties File; it is backed by a sorted index of the keys,
+     * so finding the keys of a prefix takes O(log n) plus the number of keys found.
+     *
+     * @param prefix
+     *         the key prefix, may be empty
+     *
+     * @return the view
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code prefix} is null
+     */
+    public final PropertiesSubset subset(String prefix) {
+        notNull(prefix, "String prefix");
+        return new PropertiesSubset(this, prefix);
+    }
+
+    /** Marks the key index as outdated, to be called whenever a key has been added or removed or the file reloaded */
+    protected final void keysChanged() {
+        keyVersion.incrementAndGet();
+    }
+
+    /**
+     * Gets all keys in sorted order, the array must not be changed
+     *
+     * @return the sorted keys
+     */
+    final String[] sortedKeys() {
+        int version = keyVersion.get(); // Before reading the keys, so changes made meanwhile outdate the new index
+        KeyIndex index = keyIndex;
+        if (index == null || index.version != version) {
+            Set<String> keys = getPropertiesMap().keySet();
+            String[] sorted = keys.toArray(new String[keys.size()]);
+            Arrays.sort(sorted);
+            keyIndex = index = new KeyIndex(version, sorted);
+        }
+        return index.keys;
+    }
+
+    private static String checked(String key) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+        return key;
+    }
+
+    private <T extends PropertyHandle> T register(T handle) {
+        ConcurrentHashMap<String, CopyOnWriteArrayList<WeakReference<PropertyHandle>>> registered;
+        synchronized (this) {
+            registered = handles;
+            if (registered == null) {
+                registered = handles = new ConcurrentHashMap<String, CopyOnWriteArrayList<WeakReference<PropertyHandle>>>();
+            }
+            CopyOnWriteArrayList<WeakReference<PropertyHandle>> keyed = registered.get(handle.key);
+            if (keyed == null) {
+                keyed = new CopyOnWriteArrayList<WeakReference<PropertyHandle>>();
+                registered.put(handle.key, keyed);
+            }
+            for (WeakReference<PropertyHandle> reference : keyed) {
+                if (reference.get() == null) {
+                    keyed.remove(reference); // Not updated since, so dropped here instead
+                }
+            }
+            keyed.add(new WeakReference<PropertyHandle>(handle));
+        }
+        handle.refresh(); // Registered first, so a change made meanwhile is not missed
+        return handle;
+    }
+
     /**
      * Gets the File Path of the Properties File
      *
@@ -1558,6 +2052,15 @@ public abstract class AbstractPropertiesFile {
         }
     }
 
+    private static Set<LoadOption> toSet(LoadOption[] options) {
+        EnumSet<LoadOption> set = EnumSet.noneOf(LoadOption.class);
+        for (LoadOption option : options) {
+            notNull(option, "LoadOption option");
+            set.add(option);
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
     /**
      * Gets this class's version number
      *
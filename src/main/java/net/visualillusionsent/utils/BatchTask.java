@@ -0,0 +1,79 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+/**
+ * Batch Task
+ * <p/>
+ * The work done for each item of a batch run by {@link TaskManager#invokeBatch(java.util.Collection, BatchTask)} and the
+ * other batch methods of the TaskManager. Items are processed in parallel, so {@link #process(Object)} must be safe to
+ * call from several threads at once.
+ * <p/>
+ * The results of the items are folded together with {@link #combine(Object, Object)} in the order of the items, though
+ * not necessarily by the same thread. By default the results are discarded and the batch returns {@code null}.
+ *
+ * @param <T>
+ *         the type of the items
+ * @param <R>
+ *         the type of the result
+ *
+ * @author Jason (darkdiplomat)
+ * @version 1.0
+ * @since 1.4.3
+ */
+public abstract class BatchTask<T, R> {
+
+    /* 1.0 @ VIUtils 1.4.3 */
+    private static final float classVersion = 1.0F;
+
+    /**
+     * Processes one item of the batch
+     *
+     * @param item
+     *         the item, or its index for a range
+     *
+     * @return the result for the item
+     *
+     * @throws Exception
+     *         to fail the batch; items not started yet are skipped
+     */
+    protected abstract R process(T item) throws Exception;
+
+    /**
+     * Combines the results of two adjacent runs of items
+     *
+     * @param left
+     *         the result of the earlier items
+     * @param right
+     *         the result of the later items
+     *
+     * @return the combined result
+     */
+    protected R combine(R left, R right) {
+        return null;
+    }
+
+    /**
+     * Gets this class's version number
+     *
+     * @return the class version
+     */
+    public static float getClassVersion() {
+        return classVersion;
+    }
+}
@@ -0,0 +1,2525 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+
+import static net.visualillusionsent.utils.Verify.notEmpty;
+import static net.visualillusionsent.utils.Verify.notEmptyNoTrim;
+import static net.visualillusionsent.utils.Verify.notNull;
+
+/**
+ * Thread safe Properties File helper
+ * <p/>
+ * Same file format and methods as {@link PropertiesFile}, for files read by many threads while others write to them.<br>
+ * Each property is kept as one immutable entry of its value, parsed number or boolean and insertion order inside a
+ * {@link ConcurrentHashMap}, so reads never lock and can never see a cached number or boolean that does not belong to
+ * the value next to it. Writes replace entries with compare-and-set and only contend on the same map segment.
+ * Comments are immutable lists that are replaced on change and the header and footer are copy-on-write lists.<br>
+ * The properties, comments, header and footer of the file are held together and a reload publishes a new set of them
+ * at once, so readers see either the old or the new file, never a mix. Changes made while a reload is running are lost
+ * with the old set.<br>
+ * Properties are saved in the order they were first added. Saving and reloading are serialized against each other.
+ * <p/>
+ * The inherited {@code props}, {@code numberCache}, {@code booleanCache}, {@code comments}, {@code inlineCom},
+ * {@code header} and {@code footer} fields are not used.
+ *
+ * @author Jason (darkdiplomat)
+ * @version 1.0
+ * @since 1.4.3
+ */
+public final class ConcurrentPropertiesFile extends AbstractPropertiesFile {
+
+    /* 1.0 @ VIUtils 1.4.3 */
+    private static final float classVersion = 1.0F;
+    private static final Comparator<Map.Entry<String, Slot>> insertionOrder = new Comparator<Map.Entry<String, Slot>>() {
+        @Override
+        public int compare(Map.Entry<String, Slot> entry1, Map.Entry<String, Slot> entry2) {
+            long order1 = entry1.getValue().order, order2 = entry2.getValue().order;
+            return order1 < order2 ? -1 : (order1 == order2 ? 0 : 1);
+        }
+    };
+    private volatile State state = new State();
+    private final AtomicLong insertions = new AtomicLong();
+
+    /** The properties, comments, header and footer of the file, replaced as a whole when it is reloaded */
+    private static final class State {
+        private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<String, Slot>();
+        private final ConcurrentHashMap<String, List<String>> comments = new ConcurrentHashMap<String, List<String>>();
+        private final ConcurrentHashMap<String, String> inlineCom = new ConcurrentHashMap<String, String>();
+        private final CopyOnWriteArrayList<String> header = new CopyOnWriteArrayList<String>();
+        private final CopyOnWriteArrayList<String> footer = new CopyOnWriteArrayList<String>();
+    }
+
+    /** Immutable property entry, replaced as a whole whenever the value or its cache changes */
+    private static final class Slot {
+        private final String value;
+        private final long order;
+        private final Number number;
+        private final Boolean bool;
+
+        private Slot(String value, long order, Number number, Boolean bool) {
+            this.value = value;
+            this.order = order;
+            this.number = number;
+            this.bool = bool;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading the file or if unable to create the file
+     */
+    public ConcurrentPropertiesFile(String filePath) {
+        this(filePath, new LoadOption[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading the file or if unable to create the file
+     */
+    public ConcurrentPropertiesFile(String filePath, LoadOption... options) {
+        super(filePath, options);
+        init();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading the file or if unable to create the file
+     */
+    public ConcurrentPropertiesFile(File file) {
+        this(file, new LoadOption[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading the file or if unable to create the file
+     */
+    public ConcurrentPropertiesFile(File file, LoadOption... options) {
+        super(file, options);
+        init();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading the Zip File
+     */
+    public ConcurrentPropertiesFile(String zipPath, String entry) {
+        super(zipPath, entry);
+        ZipEntry ent = zip.getEntry(entry);
+        try {
+            load(zip.getInputStream(ent));
+        }
+        catch (IOException e) {
+            throw new PropertiesFileException("file.err.ioe", filePath);
+        }
+    }
+
+    private void init() {
+        if (propsFile.exists()) {
+            loadFile();
+        }
+        else {
+            filePath = FileUtils.normalizePath(filePath);
+            if (filePath.contains(File.separator)) {
+                File temp = new File(filePath.substring(0, filePath.lastIndexOf(File.separator)));
+                if (!temp.exists()) {
+                    if (!temp.mkdirs()) {
+                        throw new PropertiesFileException("Failed to make directory path for FilePath: ".concat(filePath));
+                    }
+                    save(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading the file
+     */
+    @Override
+    protected final void load(InputStream inStream) {
+        PropertiesFileException uex = null;
+        Reader in = null;
+        try {
+            in = new InputStreamReader(inStream, "UTF-8");
+            scan(new PropertiesScanner(in));
+        }
+        catch (IOException ioe) {
+            UtilsLogger.severe(String.format("An IOException occurred in File: '%s'", filePath), ioe);
+            uex = new PropertiesFileException("file.err.ioe", filePath);
+        }
+        finally {
+            if (in != null) {
+                try {
+                    in.close();
+                }
+                catch (IOException e) {
+                    //do nothing
+                }
+            }
+        }
+        if (uex != null) {
+            throw uex;
+        }
+    }
+
+    /**
+     * Loads the backing file, memory mapped if {@link LoadOption#MEMORY_MAPPED} was specified
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading the file
+     */
+    private void loadFile() {
+        if (loadOptions.contains(LoadOption.MEMORY_MAPPED)) {
+            try {
+                scan(new PropertiesScanner(mapFile()));
+            }
+            catch (IOException ioe) {
+                UtilsLogger.severe(String.format("An IOException occurred in File: '%s'", filePath), ioe);
+                throw new PropertiesFileException("file.err.ioe", filePath);
+            }
+        }
+        else {
+            try {
+                load(new FileInputStream(propsFile));
+            }
+            catch (FileNotFoundException e) {
+                throw new PropertiesFileException("file.err.ioe", filePath);
+            }
+        }
+    }
+
+    /** Scans the whole file into a new {@link State} off to the side, then publishes it in one write */
+    private void scan(PropertiesScanner scanner) throws IOException {
+        final LinkedHashMap<String, String> values = new LinkedHashMap<String, String>();
+        final State parsed = new State();
+        final List<String> newHeader = new ArrayList<String>();
+        final List<String> newFooter = new ArrayList<String>();
+        scanner.scan(new PropertiesScanner.Handler() {
+            private final ArrayList<String> inComments = new ArrayList<String>();
+
+            @Override
+            public final void header(String line) {
+                newHeader.add(line);
+            }
+
+            @Override
+            public final void footer(String line) {
+                newFooter.add(line);
+            }
+
+            @Override
+            public final void comment(String line) {
+                inComments.add(line);
+            }
+
+            @Override
+            public final void property(String key, String value, String inlineComment) {
+                if (inlineComment != null) {
+                    parsed.inlineCom.put(key, inlineComment);
+                }
+                values.put(key, value);
+                if (!inComments.isEmpty()) {
+                    parsed.comments.put(key, Collections.unmodifiableList(new ArrayList<String>(inComments)));
+                    inComments.clear();
+                }
+            }
+
+            @Override
+            public final void invalid() {
+                //Incomplete property, drop reference
+                inComments.clear();
+            }
+        });
+        parsed.header.addAll(newHeader); // One copy each
+        parsed.footer.addAll(newFooter);
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            parsed.slots.put(value.getKey(), new Slot(value.getValue(), insertions.incrementAndGet(), null, null));
+        }
+        this.state = parsed;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading the file
+     */
+    @Override
+    public final synchronized void reload() {
+        if (zip != null) {
+            ZipEntry ent = zip.getEntry(filePath);
+            if (ent == null) {
+                throw new PropertiesFileException("entry.missing", filePath);
+            }
+            try {
+                load(zip.getInputStream(ent));
+            }
+            catch (IOException e) {
+                throw new PropertiesFileException("file.err.ioe", filePath);
+            }
+        }
+        else {
+            loadFile();
+        }
+        this.hasChanged = false;
+        keysChanged();
+        valuesChanged();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while writing the file
+     */
+    @Override
+    public final void save() {
+        this.save(false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while writing the file
+     */
+    @Override
+    public final void forceSave() {
+        this.save(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while writing the file
+     */
+    @Override
+    protected final synchronized void save(boolean force) {
+        if (zip != null) {
+            throw new PropertiesFileException("Saving is not supported with PropertiesFiles inside of Zip/Jar files");
+        }
+        if (!hasChanged && !force) {
+            return;
+        }
+        this.hasChanged = false; // Cleared before writing so changes made while writing are not lost
+        propsFile = new File(filePath);
+        File temp = null;
+        FileOutputStream out = null;
+        try {
+            byte[] data = serialize();
+            File dir = propsFile.getAbsoluteFile().getParentFile();
+            temp = File.createTempFile(propsFile.getName(), ".tmp", dir);
+            out = new FileOutputStream(temp);
+            out.write(data);
+            out.close();
+            out = null;
+            if (!temp.renameTo(propsFile)) {
+                // Some platforms (ie: Windows) will not rename over an existing file
+                if (!propsFile.delete() || !temp.renameTo(propsFile)) {
+                    this.hasChanged = true;
+                    throw new PropertiesFileException("file.err.ioe", filePath);
+                }
+            }
+            temp = null;
+        }
+        catch (IOException ioe) {
+            this.hasChanged = true;
+            UtilsLogger.severe(String.format("An IOException occurred in File: '%s'", filePath), ioe);
+            throw new PropertiesFileException("file.err.ioe", filePath);
+        }
+        finally {
+            if (out != null) {
+                try {
+                    out.close();
+                }
+                catch (IOException e) {
+                    //do nothing
+                }
+            }
+            if (temp != null && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    /** Writes the header, properties in insertion order and footer into one buffer */
+    private byte[] serialize() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        Writer out = new OutputStreamWriter(bytes, "UTF-8");
+        State current = state;
+        for (String headerLn : current.header) {
+            out.write(headerLn);
+            out.write(SystemUtils.LINE_SEP);
+        }
+        for (Map.Entry<String, Slot> prop : ordered(current)) {
+            List<String> propComments = current.comments.get(prop.getKey());
+            if (propComments != null) {
+                for (String comment : propComments) {
+                    out.write(comment);
+                    out.write(SystemUtils.LINE_SEP);
+                }
+            }
+            out.write(prop.getKey());
+            out.write('=');
+            out.write(prop.getValue().value.replace("#!", "\\#\\!"));
+            String inLineC = current.inlineCom.get(prop.getKey());
+            if (inLineC != null) {
+                out.write(" #!");
+                out.write(inLineC);
+            }
+            out.write(SystemUtils.LINE_SEP);
+        }
+        for (String footerLn : current.footer) {
+            out.write(footerLn);
+            out.write(SystemUtils.LINE_SEP);
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /** @return the current entries sorted by the order their keys were first added */
+    private static List<Map.Entry<String, Slot>> ordered(State current) {
+        ArrayList<Map.Entry<String, Slot>> entries = new ArrayList<Map.Entry<String, Slot>>(current.slots.size());
+        for (Map.Entry<String, Slot> entry : current.slots.entrySet()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<String, Slot>(entry)); // Pin the value for sorting
+        }
+        Collections.sort(entries, insertionOrder);
+        return entries;
+    }
+
+    /**
+     * Gets the entry for a key
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     */
+    private Slot existing(String key) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        Slot slot = state.slots.get(key);
+        if (slot == null) {
+            throw new UnknownPropertyException("key.missing", key);
+        }
+        return slot;
+    }
+
+    /** Stores a parsed value with the entry it was parsed from, unless the entry has been replaced in the meantime */
+    private void cache(String key, Slot slot, Number number, Boolean bool) {
+        state.slots.replace(key, slot, new Slot(slot.value, slot.order, number != null ? number : slot.number, bool != null ? bool : slot.bool));
+    }
+
+    /** Sets a value along with its already known number or boolean, keeping the order of existing keys */
+    private void put(String key, String value, Number number, Boolean bool, String[] comment) {
+        ConcurrentHashMap<String, Slot> slots = state.slots;
+        Slot slot;
+        do {
+            slot = slots.get(key);
+            if (slot != null && value.equals(slot.value)) {
+                return;
+            }
+        } while (slot == null
+                ? slots.putIfAbsent(key, new Slot(value, insertions.incrementAndGet(), number, bool)) != null
+                : !slots.replace(key, slot, new Slot(value, slot.order, number, bool)));
+        if (slot == null) {
+            keysChanged(); // Added
+        }
+        addComment(key, comment);
+        valueChanged(key);
+        this.hasChanged = true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key}  is empty
+     */
+    @Override
+    public final boolean containsKey(String key) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        return state.slots.containsKey(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if a {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if a {@code key} is empty
+     */
+    @Override
+    public final boolean containsKeys(String... keys) {
+        boolean contains = true;
+        for (String key : keys) {
+            contains &= containsKey(key);
+        }
+        return contains;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void removeKey(String key) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        State current = state;
+        if (current.slots.remove(key) != null) {
+            current.comments.remove(key);
+            current.inlineCom.remove(key);
+            keysChanged();
+            valueChanged(key);
+            this.hasChanged = true;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if a {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if a {@code key} is empty
+     */
+    @Override
+    public final void removeKeys(String... keys) {
+        notNull(keys, "String... keys");
+        notEmpty(keys, "String... keys");
+
+        for (String key : keys) {
+            removeKey(key);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     */
+    @Override
+    public final String getString(String key) {
+        return existing(key).value;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final String getString(String key, String def) {
+        notNull(key, "String key");
+        notNull(def, "String def");
+        notEmpty(key, "String key");
+
+        Slot slot = state.slots.get(key);
+        if (slot != null) {
+            return slot.value;
+        }
+        setString(key, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     *         if {@code value} if null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setString(String key, String value) {
+        setString(key, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setString(String key, String value, String... comment) {
+        notNull(key, "String key");
+        notNull(value, "String value");
+        notEmpty(key, "String key");
+
+        put(key, value, null, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     */
+    @Override
+    public final String[] getStringArray(String key) {
+        return getStringArray(key, ",");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final String[] getStringArray(String key, String[] def) {
+        notNull(def, "String[] def");
+
+        if (containsKey(key)) {
+            return getStringArray(key, ",");
+        }
+        else {
+            setStringArray(key, def);
+            return def;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setStringArray(String key, String[] value) {
+        setStringArray(key, ",", value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setStringArray(String key, String[] value, String... comment) {
+        setStringArray(key, ",", value, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     */
+    @Override
+    public final String[] getStringArray(String key, String delimiter) {
+        notNull(delimiter, "String delimiter");
+        notEmptyNoTrim(delimiter, "String delimiter");
+
+        return StringUtils.trimElements(getString(key).split(delimiter));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final String[] getStringArray(String key, String delimiter, String[] def) {
+        if (containsKey(key)) {
+            return getStringArray(key, delimiter);
+        }
+        else {
+            setStringArray(key, delimiter, def);
+            return def;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setStringArray(String key, String delimiter, String[] value) {
+        setStringArray(key, delimiter, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setStringArray(String key, String delimiter, String[] value, String... comment) {
+        notNull(key, "String key");
+        notNull(value, "String[] value");
+        notNull(delimiter, "String delimiter");
+        notEmpty(key, "String key");
+        notEmptyNoTrim(delimiter, "String delimiter");
+
+        put(key, StringUtils.joinString(value, delimiter, 0), null, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final byte getByte(String key) {
+        Slot slot = existing(key);
+        if (slot.number != null) { // Caching check
+            return slot.number.byteValue();
+        }
+        try {
+            byte value = Byte.decode(slot.value);
+            cache(key, slot, value, null);
+            return value;
+        }
+        catch (NumberFormatException nfe) {
+            // Change Message
+            throw new NumberFormatException(Verify.parse("prop.nan", key));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final byte getByte(String key, byte def) {
+        if (containsKey(key)) {
+            try {
+                return getByte(key);
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setByte(key, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setByte(String key, byte value) {
+        setByte(key, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setByte(String key, byte value, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, String.valueOf(value), value, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final byte[] getByteArray(String key) {
+        return getByteArray(key, ",");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final byte[] getByteArray(String key, byte[] def) {
+        if (containsKey(key)) {
+            try {
+                return getByteArray(key, ",");
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setByteArray(key, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setByteArray(String key, byte[] value) {
+        setByteArray(key, ",", value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setByteArray(String key, byte[] value, String... comment) {
+        setByteArray(key, ",", value, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final byte[] getByteArray(String key, String delimiter) {
+        return StringUtils.stringToByteArray(getString(key), delimiter);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final byte[] getByteArray(String key, String delimiter, byte[] def) {
+        if (containsKey(key)) {
+            try {
+                return StringUtils.stringToByteArray(getString(key), delimiter);
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setByteArray(key, delimiter, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setByteArray(String key, String delimiter, byte[] value) {
+        setByteArray(key, delimiter, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setByteArray(String key, String delimiter, byte[] value, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, StringUtils.byteArrayToString(value, delimiter), null, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final short getShort(String key) {
+        Slot slot = existing(key);
+        if (slot.number != null) { // Caching check
+            return slot.number.shortValue();
+        }
+        try {
+            short value = Short.decode(slot.value);
+            cache(key, slot, value, null);
+            return value;
+        }
+        catch (NumberFormatException nfe) {
+            // Change Message
+            throw new NumberFormatException(Verify.parse("prop.nan", key));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final short getShort(String key, short def) {
+        if (containsKey(key)) {
+            try {
+                return getShort(key);
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setShort(key, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setShort(String key, short value) {
+        setShort(key, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setShort(String key, short value, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, String.valueOf(value), value, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final short[] getShortArray(String key) {
+        return getShortArray(key, ",");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final short[] getShortArray(String key, short[] def) {
+        if (containsKey(key)) {
+            try {
+                return getShortArray(key, ",");
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setShortArray(key, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setShortArray(String key, short[] value) {
+        setShortArray(key, ",", value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setShortArray(String key, short[] value, String... comment) {
+        setShortArray(key, ",", value, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final short[] getShortArray(String key, String delimiter) {
+        return StringUtils.stringToShortArray(getString(key), delimiter);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final short[] getShortArray(String key, String delimiter, short[] def) {
+        if (containsKey(key)) {
+            try {
+                return StringUtils.stringToShortArray(getString(key), delimiter);
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setShortArray(key, delimiter, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setShortArray(String key, String delimiter, short[] value) {
+        setShortArray(key, delimiter, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setShortArray(String key, String delimiter, short[] value, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, StringUtils.shortArrayToString(value, delimiter), null, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final int getInt(String key) {
+        Slot slot = existing(key);
+        if (slot.number != null) { // Caching check
+            return slot.number.intValue();
+        }
+        try {
+            int value = Integer.decode(slot.value);
+            cache(key, slot, value, null);
+            return value;
+        }
+        catch (NumberFormatException nfe) {
+            // Change Message
+            throw new NumberFormatException(Verify.parse("prop.nan", key));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final int getInt(String key, int def) {
+        if (containsKey(key)) {
+            try {
+                return getInt(key);
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setInt(key, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setInt(String key, int value) {
+        setInt(key, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setInt(String key, int value, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, String.valueOf(value), value, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final int[] getIntArray(String key) {
+        return getIntArray(key, ",");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final int[] getIntArray(String key, int[] def) {
+        if (containsKey(key)) {
+            try {
+                return getIntArray(key, ",");
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setIntArray(key, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setIntArray(String key, int[] value) {
+        setIntArray(key, ",", value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setIntArray(String key, int[] value, String... comment) {
+        setIntArray(key, ",", value, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final int[] getIntArray(String key, String delimiter) {
+        return StringUtils.stringToIntArray(getString(key), delimiter);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final int[] getIntArray(String key, String delimiter, int[] def) {
+        if (containsKey(key)) {
+            try {
+                return StringUtils.stringToIntArray(getString(key), delimiter);
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setIntArray(key, delimiter, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setIntArray(String key, String delimiter, int[] value) {
+        setIntArray(key, delimiter, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setIntArray(String key, String delimiter, int[] value, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, StringUtils.intArrayToString(value, delimiter), null, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final long getLong(String key) {
+        Slot slot = existing(key);
+        if (slot.number != null) { // Caching check
+            return slot.number.longValue();
+        }
+        try {
+            long value = Long.decode(slot.value);
+            cache(key, slot, value, null);
+            return value;
+        }
+        catch (NumberFormatException nfe) {
+            // Change Message
+            throw new NumberFormatException(Verify.parse("prop.nan", key));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final long getLong(String key, long def) {
+        if (containsKey(key)) {
+            try {
+                return getLong(key);
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setLong(key, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setLong(String key, long value) {
+        setLong(key, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setLong(String key, long value, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, String.valueOf(value), value, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final long[] getLongArray(String key) {
+        return getLongArray(key, ",");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final long[] getLongArray(String key, long[] def) {
+        if (containsKey(key)) {
+            try {
+                return getLongArray(key, ",");
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setLongArray(key, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setLongArray(String key, long[] value) {
+        setLongArray(key, ",", value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setLongArray(String key, long[] value, String... comment) {
+        setLongArray(key, ",", value, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final long[] getLongArray(String key, String delimiter) {
+        return StringUtils.stringToLongArray(getString(key), delimiter);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final long[] getLongArray(String key, String delimiter, long[] def) {
+        if (containsKey(key)) {
+            try {
+                return StringUtils.stringToLongArray(getString(key), delimiter);
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setLongArray(key, delimiter, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setLongArray(String key, String delimiter, long[] value) {
+        setLongArray(key, delimiter, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setLongArray(String key, String delimiter, long[] value, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, StringUtils.longArrayToString(value, delimiter), null, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final float getFloat(String key) {
+        Slot slot = existing(key);
+        if (slot.number != null) { // Caching check
+            return slot.number.floatValue();
+        }
+        try {
+            float value = Float.parseFloat(slot.value);
+            cache(key, slot, value, null);
+            return value;
+        }
+        catch (NumberFormatException nfe) {
+            // Change Message
+            throw new NumberFormatException(Verify.parse("prop.nan", key));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final float getFloat(String key, float def) {
+        if (containsKey(key)) {
+            try {
+                return getFloat(key);
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setFloat(key, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setFloat(String key, float value) {
+        setFloat(key, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setFloat(String key, float value, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, String.valueOf(value), value, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final float[] getFloatArray(String key) {
+        return getFloatArray(key, ",");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final float[] getFloatArray(String key, float[] def) {
+        if (containsKey(key)) {
+            try {
+                return getFloatArray(key, ",");
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setFloatArray(key, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setFloatArray(String key, float[] value) {
+        setFloatArray(key, ",", value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setFloatArray(String key, float[] value, String... comment) {
+        setFloatArray(key, ",", value, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final float[] getFloatArray(String key, String delimiter) {
+        return StringUtils.stringToFloatArray(getString(key), delimiter);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final float[] getFloatArray(String key, String delimiter, float[] def) {
+        if (containsKey(key)) {
+            try {
+                return StringUtils.stringToFloatArray(getString(key), delimiter);
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setFloatArray(key, delimiter, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setFloatArray(String key, String delimiter, float[] value) {
+        setFloatArray(key, delimiter, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setFloatArray(String key, String delimiter, float[] value, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, StringUtils.floatArrayToString(value, delimiter), null, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final double getDouble(String key) {
+        Slot slot = existing(key);
+        if (slot.number != null) { // Caching check
+            return slot.number.doubleValue();
+        }
+        try {
+            double value = Double.parseDouble(slot.value);
+            cache(key, slot, value, null);
+            return value;
+        }
+        catch (NumberFormatException nfe) {
+            // Change Message
+            throw new NumberFormatException(Verify.parse("prop.nan", key));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final double getDouble(String key, double def) {
+        if (containsKey(key)) {
+            try {
+                return getDouble(key);
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setDouble(key, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setDouble(String key, double value) {
+        setDouble(key, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setDouble(String key, double value, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, String.valueOf(value), value, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final double[] getDoubleArray(String key) {
+        return getDoubleArray(key, ",");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final double[] getDoubleArray(String key, double[] def) {
+        if (containsKey(key)) {
+            try {
+                return getDoubleArray(key, ",");
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setDoubleArray(key, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setDoubleArray(String key, double[] value) {
+        setDoubleArray(key, ",", value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setDoubleArray(String key, double[] value, String... comment) {
+        setDoubleArray(key, ",", value, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     * @throws java.lang.NumberFormatException
+     *         if a value is not a number or out of range
+     */
+    @Override
+    public final double[] getDoubleArray(String key, String delimiter) {
+        return StringUtils.stringToDoubleArray(getString(key), delimiter);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final double[] getDoubleArray(String key, String delimiter, double[] def) {
+        if (containsKey(key)) {
+            try {
+                return StringUtils.stringToDoubleArray(getString(key), delimiter);
+            }
+            catch (NumberFormatException nfex) {
+                // Continue with default
+            }
+        }
+        setDoubleArray(key, delimiter, def);
+        return def;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setDoubleArray(String key, String delimiter, double[] value) {
+        setDoubleArray(key, delimiter, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setDoubleArray(String key, String delimiter, double[] value, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, StringUtils.doubleArrayToString(value, delimiter), null, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     */
+    @Override
+    public final boolean getBoolean(String key) {
+        Slot slot = existing(key);
+        if (slot.bool != null) { // Caching check
+            return slot.bool;
+        }
+        boolean value = BooleanUtils.parseBoolean(slot.value);
+        cache(key, slot, null, value);
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final boolean getBoolean(String key, boolean def) {
+        if (containsKey(key)) {
+            return getBoolean(key);
+        }
+        else {
+            setBoolean(key, def);
+            return def;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setBoolean(String key, boolean value) {
+        setBoolean(key, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setBoolean(String key, boolean value, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, String.valueOf(value), null, value, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     */
+    @Override
+    public final boolean[] getBooleanArray(String key) {
+        return getBooleanArray(key, ",");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final boolean[] getBooleanArray(String key, boolean[] def) {
+        if (containsKey(key)) {
+            return getBooleanArray(key, ",");
+        }
+        else {
+            setBooleanArray(key, def);
+            return def;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setBooleanArray(String key, boolean[] value) {
+        setBooleanArray(key, ",", value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setBooleanArray(String key, boolean[] value, String... comment) {
+        setBooleanArray(key, ",", value, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     */
+    @Override
+    public final boolean[] getBooleanArray(String key, String delimiter) {
+        return StringUtils.stringToBooleanArray(getString(key), delimiter);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code def} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final boolean[] getBooleanArray(String key, String delimiter, boolean[] def) {
+        if (containsKey(key)) {
+            return StringUtils.stringToBooleanArray(getString(key), delimiter);
+        }
+        else {
+            setBooleanArray(key, delimiter, def);
+            return def;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setBooleanArray(String key, String delimiter, boolean[] value) {
+        setBooleanArray(key, delimiter, value, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} or {@code delimiter} or {@code value} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} or {@code delimiter} is empty
+     */
+    @Override
+    public final void setBooleanArray(String key, String delimiter, boolean[] value, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, StringUtils.booleanArrayToString(value, delimiter), null, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the {@code key} does not exist
+     */
+    @Override
+    public final char getCharacter(String key) {
+        return getString(key).trim().charAt(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final char getCharacter(String key, char def) {
+        if (containsKey(key)) {
+            return getString(key).trim().charAt(0);
+        }
+        else {
+            setCharacter(key, def);
+            return def;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setCharacter(String key, char ch) {
+        setCharacter(key, ch, (String[]) null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code key} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code key} is empty
+     */
+    @Override
+    public final void setCharacter(String key, char ch, String... comment) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        put(key, String.valueOf(ch), null, null, comment);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The map is a snapshot in insertion order and does not change with the file.
+     */
+    @Override
+    public final Map<String, String> getPropertiesMap() {
+        LinkedHashMap<String, String> values = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, Slot> entry : ordered(state)) {
+            values.put(entry.getKey(), entry.getValue().value);
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final void addComment(String key, String... comment) {
+        State current = state;
+        if (key != null && current.slots.containsKey(key) && comment != null && comment.length > 0) {
+            List<String> added = new ArrayList<String>(comment.length);
+            for (String line : comment) {
+                if (line == null) {
+                    line = "";
+                }
+                if (!line.startsWith(";") && !line.startsWith("#")) {
+                    line = ";".concat(line);
+                }
+                added.add(line);
+            }
+            List<String> existing;
+            List<String> updated;
+            do {
+                existing = current.comments.get(key);
+                updated = new ArrayList<String>(existing != null ? existing.size() + added.size() : added.size());
+                if (existing != null) {
+                    updated.addAll(existing);
+                }
+                updated.addAll(added);
+                updated = Collections.unmodifiableList(updated);
+            } while (existing == null ? current.comments.putIfAbsent(key, updated) != null : !current.comments.replace(key, existing, updated));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final void setComments(String key, String... comment) {
+        State current = state;
+        if (key != null && current.slots.containsKey(key)) {
+            current.comments.remove(key);
+            this.addComment(key, comment);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final String[] getComments(String key) {
+        List<String> current = key != null ? state.comments.get(key) : null;
+        if (current != null) {
+            return current.toArray(new String[current.size()]);
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The list is read only, use the comment methods to change comments.
+     */
+    @Override
+    public final List<String> getCommentsAsList(String key) {
+        return key != null ? state.comments.get(key) : null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final void removeComment(String key, String comment) {
+        if (key == null) {
+            return;
+        }
+        ConcurrentHashMap<String, List<String>> comments = state.comments;
+        List<String> current;
+        List<String> updated;
+        do {
+            current = comments.get(key);
+            if (current == null || !current.contains(comment)) {
+                return;
+            }
+            updated = new ArrayList<String>(current);
+            updated.remove(comment);
+            updated = Collections.unmodifiableList(updated);
+        } while (!comments.replace(key, current, updated));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final void removeAllCommentsFromKey(String key) {
+        if (key != null) {
+            state.comments.remove(key);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final void removeAllCommentsFromFile() {
+        State current = state;
+        current.comments.clear();
+        current.header.clear();
+        current.footer.clear();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final void addHeaderLines(String... lines) {
+        state.header.addAll(prefixed(";#", lines));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final LinkedList<String> getHeaderLines() {
+        return new LinkedList<String>(state.header);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final void clearHeader() {
+        state.header.clear();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final void addFooterLines(String... lines) {
+        state.footer.addAll(prefixed("#;", lines));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final LinkedList<String> getFooterLines() {
+        return new LinkedList<String>(state.footer);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final void clearFooter() {
+        state.footer.clear();
+    }
+
+    /** Prefixes header or footer lines, so they can be added with a single copy of the list */
+    private static List<String> prefixed(String prefix, String... lines) {
+        List<String> toRet = new ArrayList<String>();
+        if (lines != null) {
+            for (String line : lines) {
+                if (line == null) {
+                    toRet.add(prefix.concat(" "));
+                }
+                else if (line.startsWith(prefix)) {
+                    toRet.add(line);
+                }
+                else {
+                    toRet.add(prefix.concat(line));
+                }
+            }
+        }
+        return toRet;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final String getInlineComment(String key) {
+        return key != null ? state.inlineCom.get(key) : null;
+    }
+
+    /**
+     * Checks is an {@link Object} is equal to the {@code ConcurrentPropertiesFile}
+     *
+     * @return {@code true} if equal; {@code false} otherwise
+     *
+     * @see Object#equals(Object)
+     */
+    public final boolean equals(Object obj) {
+        if (!(obj instanceof ConcurrentPropertiesFile)) {
+            return false;
+        }
+        ConcurrentPropertiesFile that = (ConcurrentPropertiesFile) obj;
+        if (!this.filePath.equals(that.filePath)) {
+            return false;
+        }
+        if (this.propsFile != null && this.propsFile != that.propsFile) {
+            return false;
+        }
+        if (this.zip != null && this.zip != that.zip) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a string representation of the {@code ConcurrentPropertiesFile} as {@code ConcurrentPropertiesFile[FilePath=%s]}
+     *
+     * @return string representation of the {@code ConcurrentPropertiesFile}
+     *
+     * @see Object#toString()
+     */
+    @Override
+    public final String toString() {
+        return String.format("ConcurrentPropertiesFile[FilePath=%s]", propsFile != null ? propsFile.getAbsolutePath() : zip.getName() + ":" + filePath);
+    }
+
+    /**
+     * Returns a hash code value for the {@code ConcurrentPropertiesFile}.
+     *
+     * @return hash
+     *
+     * @see Object#hashCode()
+     */
+    @Override
+    public final int hashCode() {
+        int hash = 9;
+        hash = 45 * hash + filePath.hashCode();
+        hash = 54 * hash + (propsFile != null ? propsFile.hashCode() : 0);
+        hash = 45 * hash + (zip != null ? zip.hashCode() : 0);
+        return hash;
+    }
+
+    /**
+     * Gets this class's version number
+     *
+     * @return the class version
+     */
+    public static final float getClassVersion() {
+        return classVersion;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static net.visualillusionsent.utils.Verify.notEmpty;
+import static net.visualillusionsent.utils.Verify.notNull;
+
+/**
+ * Cron Schedule
+ * <p/>
+ * A schedule in the five field cron format: minute, hour, day of month, month and day of week.<br>
+ * Fields accept {@code *}, numbers, ranges such as {@code 1-5}, steps such as {@code *}{@code /15} or {@code 0-30/10}
+ * and comma separated lists of those. Months and days of week may also be given by their first three letters
+ * ({@code JAN}, {@code MON}); Sunday is 0 or 7. If both day fields are restricted, a day matching either one matches,
+ * as in the classic cron. The shortcuts {@code @yearly}, {@code @monthly}, {@code @weekly}, {@code @daily} and
+ * {@code @hourly} are understood as well.
+ * <p/>
+ * Each field is kept as a bit set, so finding the next time skips whole months, days and hours that do not match
+ * rather than testing every minute.
+ *
+ * @author Jason (darkdiplomat)
+ * @version 1.0
+ * @since 1.4.3
+ */
+public final class CronSchedule {
+
+    /* 1.0 @ VIUtils 1.4.3 */
+    private static final float classVersion = 1.0F;
+    private static final String[] MONTHS = new String[]{ "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC" };
+    private static final String[] DAYS = new String[]{ "SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT" };
+    private static final int SEARCH_YEARS = 5; // A schedule like Feb 30 never matches
+
+    private final String expression;
+    private final TimeZone zone;
+    private final long minutes; // bits 0-59
+    private final long hours; // bits 0-23
+    private final long days; // bits 1-31
+    private final long months; // bits 0-11, as Calendar numbers them
+    private final long weekdays; // bits 0-6, Sunday is 0
+    private final boolean anyDay, anyWeekday;
+
+    /**
+     * Creates a new cron schedule in the default time zone
+     *
+     * @param expression
+     *         the cron expression
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code expression} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code expression} is empty or not a valid cron expression
+     */
+    public CronSchedule(String expression) {
+        this(expression, TimeZone.getDefault());
+    }
+
+    /**
+     * Creates a new cron schedule
+     *
+     * @param expression
+     *         the cron expression
+     * @param zone
+     *         the {@link TimeZone} the fields are in
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code expression} or {@code zone} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code expression} is empty or not a valid cron expression
+     */
+    public CronSchedule(String expression, TimeZone zone) {
+        notNull(expression, "String expression");
+        notEmpty(expression, "String expression");
+        notNull(zone, "TimeZone zone");
+
+        this.expression = expression.trim();
+        this.zone = zone;
+        String[] fields = shortcut(this.expression).split("\\s+");
+        if (fields.length != 5) {
+            throw invalid(expression);
+        }
+        minutes = parse(fields[0], 0, 59, null, 0, expression);
+        hours = parse(fields[1], 0, 23, null, 0, expression);
+        days = parse(fields[2], 1, 31, null, 0, expression);
+        months = parse(fields[3], 1, 12, MONTHS, 1, expression) >>> 1; // Calendar months start at 0
+        long week = parse(fields[4], 0, 7, DAYS, 0, expression);
+        weekdays = (week | (week >>> 7)) & 0x7F; // 7 is Sunday as well
+        anyDay = fields[2].startsWith("*");
+        anyWeekday = fields[4].startsWith("*");
+    }
+
+    /**
+     * Gets the expression of this schedule
+     *
+     * @return the cron expression
+     */
+    public final String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Gets the time zone of this schedule
+     *
+     * @return the {@link TimeZone}
+     */
+    public final TimeZone getTimeZone() {
+        return zone;
+    }
+
+    /**
+     * Gets the next time matching this schedule
+     *
+     * @param after
+     *         the time in milliseconds to start after
+     *
+     * @return the first matching whole minute after {@code after}, in milliseconds
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         if the schedule does not match any time within the next years, such as February 30
+     */
+    public final long next(long after) {
+        Calendar calendar = Calendar.getInstance(zone);
+        calendar.setTimeInMillis(after);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.MINUTE, 1);
+        int lastYear = calendar.get(Calendar.YEAR) + SEARCH_YEARS;
+        while (calendar.get(Calendar.YEAR) <= lastYear) {
+            if ((months & (1L << calendar.get(Calendar.MONTH))) == 0) {
+                calendar.set(Calendar.DAY_OF_MONTH, 1);
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                calendar.set(Calendar.MINUTE, 0);
+                calendar.add(Calendar.MONTH, 1);
+            }
+            else if (!dayMatches(calendar)) {
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                calendar.set(Calendar.MINUTE, 0);
+                calendar.add(Calendar.DAY_OF_MONTH, 1);
+            }
+            else if ((hours & (1L << calendar.get(Calendar.HOUR_OF_DAY))) == 0) {
+                calendar.set(Calendar.MINUTE, 0);
+                calendar.add(Calendar.HOUR_OF_DAY, 1);
+            }
+            else if ((minutes & (1L << calendar.get(Calendar.MINUTE))) == 0) {
+                calendar.add(Calendar.MINUTE, 1);
+            }
+            else {
+                return calendar.getTimeInMillis();
+            }
+        }
+        throw new IllegalArgumentException(String.format("Cron expression never matches: '%s'", expression));
+    }
+
+    private boolean dayMatches(Calendar calendar) {
+        boolean day = (days & (1L << calendar.get(Calendar.DAY_OF_MONTH))) != 0;
+        boolean weekday = (weekdays & (1L << (calendar.get(Calendar.DAY_OF_WEEK) - 1))) != 0;
+        if (anyDay || anyWeekday) {
+            return day && weekday;
+        }
+        return day || weekday;
+    }
+
+    private static String shortcut(String expression) {
+        if (!expression.startsWith("@")) {
+            return expression;
+        }
+        String name = expression.toLowerCase();
+        if (name.equals("@yearly") || name.equals("@annually")) {
+            return "0 0 1 1 *";
+        }
+        else if (name.equals("@monthly")) {
+            return "0 0 1 * *";
+        }
+        else if (name.equals("@weekly")) {
+            return "0 0 * * 0";
+        }
+        else if (name.equals("@daily") || name.equals("@midnight")) {
+            return "0 0 * * *";
+        }
+        else if (name.equals("@hourly")) {
+            return "0 * * * *";
+        }
+        throw invalid(expression);
+    }
+
+    /** Parses one field into a bit set */
+    private static long parse(String field, int min, int max, String[] names, int firstName, String expression) {
+        long bits = 0;
+        for (String part : field.split(",")) {
+            int step = 1;
+            String range = part;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = value(part.substring(slash + 1), null, 0, expression);
+                range = part.substring(0, slash);
+            }
+            int low, high;
+            if (range.equals("*")) {
+                low = min;
+                high = max;
+            }
+            else {
+                int dash = range.indexOf('-');
+                low = value(dash >= 0 ? range.substring(0, dash) : range, names, firstName, expression);
+                high = dash >= 0 ? value(range.substring(dash + 1), names, firstName, expression) : slash >= 0 ? max : low;
+            }
+            if (step <= 0 || low < min || high > max || low > high) {
+                throw invalid(expression);
+            }
+            for (int value = low; value <= high; value += step) {
+                bits |= 1L << value;
+            }
+        }
+        return bits;
+    }
+
+    private static int value(String value, String[] names, int firstName, String expression) {
+        if (names != null) {
+            for (int index = 0; index < names.length; index++) {
+                if (names[index].equalsIgnoreCase(value)) {
+                    return index + firstName;
+                }
+            }
+        }
+        try {
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException nfex) {
+            throw invalid(expression);
+        }
+    }
+
+    private static IllegalArgumentException invalid(String expression) {
+        return new IllegalArgumentException(String.format("Invalid cron expression: '%s'", expression));
+    }
+
+    @Override
+    public final String toString() {
+        return expression;
+    }
+
+    /**
+     * Gets this class's version number
+     *
+     * @return the class version
+     */
+    public static float getClassVersion() {
+        return classVersion;
+    }
+}
@@ -32,6 +32,9 @@ import java.util.logging.Logger;
  * <p/>
  * As of LocaleHelper 1.2, you can now specify an external directory as the path to the lang files.<br>
  * The directory should be set up the same as though it is inside the Jar file.
+ * <p/>
+ * Language files are loaded with {@link AbstractPropertiesFile.LoadOption#DEDUPLICATE}, so all locales share one copy of the keys
+ * and of common short values.
  *
  * @author Jason (darkdiplomat)
  * @version 1.5
@@ -288,10 +291,10 @@ public abstract class LocaleHelper {
         }
         else {
             if (!external) {
-                langs.put(locale, new UnmodifiablePropertiesFile(jarPath, "resources/lang/".concat(utils_lang.getString(locale)).concat(".lang")));
+                langs.put(locale, new UnmodifiablePropertiesFile(jarPath, "resources/lang/".concat(utils_lang.getString(locale)).concat(".lang"), AbstractPropertiesFile.LoadOption.DEDUPLICATE));
             }
             else {
-                langs.put(locale, new UnmodifiablePropertiesFile(extDir.concat(utils_lang.getString(locale)).concat(".lang")));
+                langs.put(locale, new UnmodifiablePropertiesFile(extDir.concat(utils_lang.getString(locale)).concat(".lang"), AbstractPropertiesFile.LoadOption.DEDUPLICATE));
             }
         }
     }
@@ -17,25 +17,32 @@
  */
 package net.visualillusionsent.utils;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 
 import static net.visualillusionsent.utils.Verify.notEmpty;
 import static net.visualillusionsent.utils.Verify.notEmptyNoTrim;
+import static net.visualillusionsent.utils.Verify.notNegativeOrZero;
 import static net.visualillusionsent.utils.Verify.notNull;
 
 /**
@@ -56,6 +63,76 @@ public final class PropertiesFile extends AbstractPropertiesFile {
 
     /* 1.6 @ VIUtils 1.4.1 */
     private static final float classVersion = 1.6F;
+    /* Digest, length and modification time of the file as last saved, guarded by writeLock */
+    private byte[] savedDigest;
+    private long savedLength, savedModified;
+    /* Serializes writing the file, which happens outside the lock on the PropertiesFile */
+    private final Object writeLock = new Object();
+    /* Numbers the copies taken for saving, so an older copy never replaces a newer one on disk */
+    private long copies, written;
+    private boolean syncOnSave;
+    private volatile WriteBehindSaver writeBehind;
+    /* Parsed values by key, used instead of the inherited number and boolean caches */
+    private final HashMap<String, Slot> parsed = new HashMap<String, Slot>();
+
+    /**
+     * Parsed forms of one value, kept without boxing
+     * <p/>
+     * A number is kept as a long or as the bits of a double and converted to the type asked for the same way
+     * {@link Number} would. A boolean is kept next to it, so both can be cached for the same value.
+     * The last number array read is kept with the delimiter it was split at, callers are given copies of it.
+     */
+    private static final class Slot {
+        private static final byte NONE = 0, INTEGRAL = 1, FLOATING = 2, FALSE = 1, TRUE = 2;
+        private byte number = NONE; // NONE, INTEGRAL or FLOATING
+        private byte bool = NONE; // NONE, FALSE or TRUE
+        private long bits; // the integral value or the bits of the floating value
+        private Object array; // int[], long[] or double[]
+        private String delimiter; // the array was split at
+
+        private void setIntegral(long value) {
+            this.number = INTEGRAL;
+            this.bits = value;
+        }
+
+        private void setFloating(double value) {
+            this.number = FLOATING;
+            this.bits = Double.doubleToRawLongBits(value);
+        }
+
+        private void setBoolean(boolean value) {
+            this.bool = value ? TRUE : FALSE;
+        }
+
+        private void setArray(Object array, String delimiter) {
+            this.array = array;
+            this.delimiter = delimiter;
+        }
+
+        private byte byteValue() {
+            return number == FLOATING ? (byte) doubleValue() : (byte) bits;
+        }
+
+        private short shortValue() {
+            return number == FLOATING ? (short) doubleValue() : (short) bits;
+        }
+
+        private int intValue() {
+            return number == FLOATING ? (int) doubleValue() : (int) bits;
+        }
+
+        private long longValue() {
+            return number == FLOATING ? (long) doubleValue() : bits;
+        }
+
+        private float floatValue() {
+            return number == FLOATING ? (float) doubleValue() : (float) bits;
+        }
+
+        private double doubleValue() {
+            return number == FLOATING ? Double.longBitsToDouble(bits) : (double) bits;
+        }
+    }
 
     /**
      * {@inheritDoc}
@@ -64,22 +141,25 @@ public final class PropertiesFile extends AbstractPropertiesFile {
      *         if an exception occurs while reading the file or if unable to create the file
      */
     public PropertiesFile(String filePath) {
-        super(filePath);
+        this(filePath, new LoadOption[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading the file or if unable to create the file
+     */
+    public PropertiesFile(String filePath, LoadOption... options) {
+        super(filePath, options);
         this.props = new LinkedHashMap<String, String>();
-        this.booleanCache = new HashMap<String, Boolean>();
-        this.numberCache = new HashMap<String, Number>();
         this.comments = new LinkedHashMap<String, List<String>>();
         this.inlineCom = new LinkedHashMap<String, String>();
         this.header = new LinkedList<String>();
         this.footer = new LinkedList<String>();
 
         if (propsFile.exists()) {
-            try {
-                load(new FileInputStream(propsFile));
-            }
-            catch (FileNotFoundException e) {
-                throw new PropertiesFileException("file.err.ioe", filePath);
-            }
+            loadFile();
         }
         else {
             filePath = FileUtils.normalizePath(filePath);
@@ -102,21 +182,24 @@ public final class PropertiesFile extends AbstractPropertiesFile {
      *         if an exception occurs while reading the file or if unable to create the file
      */
     public PropertiesFile(File file) {
-        super(file);
+        this(file, new LoadOption[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading the file or if unable to create the file
+     */
+    public PropertiesFile(File file, LoadOption... options) {
+        super(file, options);
         this.props = new LinkedHashMap<String, String>();
-        this.booleanCache = new HashMap<String, Boolean>();
-        this.numberCache = new HashMap<String, Number>();
         this.comments = new LinkedHashMap<String, List<String>>();
         this.inlineCom = new LinkedHashMap<String, String>();
         this.header = new LinkedList<String>();
         this.footer = new LinkedList<String>();
         if (propsFile.exists()) {
-            try {
-                load(new FileInputStream(propsFile));
-            }
-            catch (FileNotFoundException e) {
-                throw new PropertiesFileException("file.err.ioe", filePath);
-            }
+            loadFile();
         }
         else {
             filePath = FileUtils.normalizePath(filePath);
@@ -142,8 +225,6 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         super(zipPath, entry);
         ZipEntry ent = zip.getEntry(entry);
         this.props = new LinkedHashMap<String, String>();
-        this.booleanCache = new HashMap<String, Boolean>();
-        this.numberCache = new HashMap<String, Number>();
         this.comments = new LinkedHashMap<String, List<String>>();
         this.inlineCom = new LinkedHashMap<String, String>();
         this.header = new LinkedList<String>();
@@ -165,49 +246,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
     @Override
     protected final void load(InputStream inStream) {
         PropertiesFileException uex = null;
-        BufferedReader in = null;
+        Reader in = null;
         try {
-            in = new BufferedReader(new InputStreamReader(inStream, "UTF-8"));
-            String inLine;
-            LinkedList<String> inComments = new LinkedList<String>();
-            while ((inLine = in.readLine()) != null) {
-                if (inLine.startsWith(";#")) {
-                    header.add(inLine);
-                }
-                else if (inLine.startsWith("#;")) {
-                    footer.add(inLine);
-                }
-                else if (inLine.startsWith(";") || inLine.startsWith("#")) {
-                    inComments.add(inLine);
-                }
-                else {
-                    String[] propsLine = inLine.split("=");
-                    try {
-                        String key = propsLine[0].trim();
-                        String value = propsLine[1];
-                        if (value.contains("#!")) {
-                            inlineCom.put(key, value.split("#!")[1]);
-                            value = value.split("#!")[0];
-                        }
-                        props.put(key.trim(), value.replace("\\#\\!", "#!").trim()); //remove escape sequence
-                    }
-                    catch (ArrayIndexOutOfBoundsException aioobex) {
-                        //Empty value?
-                        if (inLine.contains("=")) {
-                            props.put(propsLine[0], "");
-                        }
-                        //Incomplete property, drop reference
-                        else {
-                            inComments.clear();
-                            continue;
-                        }
-                    }
-                    if (!inComments.isEmpty()) {
-                        comments.put(propsLine[0], new LinkedList<String>(inComments));
-                        inComments.clear();
-                    }
-                }
-            }
+            in = new InputStreamReader(inStream, "UTF-8");
+            scan(new PropertiesScanner(in));
         }
         catch (IOException ioe) {
             UtilsLogger.severe(String.format("An IOException occurred in File: '%s'", filePath), ioe);
@@ -228,6 +270,105 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         }
     }
 
+    /**
+     * Loads the backing file, from its snapshot if {@link LoadOption#SNAPSHOT} or memory mapped if {@link LoadOption#MEMORY_MAPPED}
+     * was specified
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading the file
+     */
+    private void loadFile() {
+        if (loadOptions.contains(LoadOption.SNAPSHOT)) {
+            loadSnapshot();
+        }
+        else if (loadOptions.contains(LoadOption.MEMORY_MAPPED)) {
+            try {
+                scan(new PropertiesScanner(mapFile()));
+            }
+            catch (IOException ioe) {
+                UtilsLogger.severe(String.format("An IOException occurred in File: '%s'", filePath), ioe);
+                throw new PropertiesFileException("file.err.ioe", filePath);
+            }
+        }
+        else {
+            try {
+                load(new FileInputStream(propsFile));
+            }
+            catch (FileNotFoundException e) {
+                throw new PropertiesFileException("file.err.ioe", filePath);
+            }
+        }
+    }
+
+    /**
+     * Loads the binary snapshot if it still matches the backing file, otherwise scans the file and writes a new snapshot
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading the file
+     */
+    private void loadSnapshot() {
+        PropertiesSnapshot snapshot;
+        try {
+            long modified = propsFile.lastModified(); // Before reading, so a later change is never mistaken for this one
+            byte[] data = PropertiesSnapshot.readSource(propsFile);
+            long checksum = PropertiesSnapshot.checksum(data);
+            File sidecar = PropertiesSnapshot.sidecar(propsFile);
+            snapshot = PropertiesSnapshot.read(sidecar, data.length, modified, checksum);
+            if (snapshot == null) {
+                snapshot = PropertiesSnapshot.scan(data);
+                snapshot.write(sidecar, data.length, modified, checksum);
+            }
+        }
+        catch (IOException ioe) {
+            UtilsLogger.severe(String.format("An IOException occurred in File: '%s'", filePath), ioe);
+            throw new PropertiesFileException("file.err.ioe", filePath);
+        }
+        props.putAll(snapshot.props);
+        comments.putAll(snapshot.comments);
+        inlineCom.putAll(snapshot.inlineCom);
+        header.addAll(snapshot.header);
+        footer.addAll(snapshot.footer);
+    }
+
+    private void scan(PropertiesScanner scanner) throws IOException {
+        scanner.scan(new PropertiesScanner.Handler() {
+            private final LinkedList<String> inComments = new LinkedList<String>();
+
+            @Override
+            public final void header(String line) {
+                header.add(line);
+            }
+
+            @Override
+            public final void footer(String line) {
+                footer.add(line);
+            }
+
+            @Override
+            public final void comment(String line) {
+                inComments.add(line);
+            }
+
+            @Override
+            public final void property(String key, String value, String inlineComment) {
+                if (inlineComment != null) {
+                    inlineCom.put(key, inlineComment);
+                }
+                props.put(key, value);
+                if (!inComments.isEmpty()) {
+                    comments.put(key, new LinkedList<String>(inComments));
+                    inComments.clear();
+                }
+            }
+
+            @Override
+            public final void invalid() {
+                //Incomplete property, drop reference
+                inComments.clear();
+            }
+        });
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -238,8 +379,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
     public final void reload() {
         props.clear();
         comments.clear();
-        booleanCache.clear();
-        numberCache.clear();
+        inlineCom.clear();
+        header.clear();
+        footer.clear();
+        parsed.clear();
         if (zip != null) {
             ZipEntry ent = zip.getEntry(filePath);
             if (ent == null) {
@@ -253,14 +396,11 @@ public final class PropertiesFile extends AbstractPropertiesFile {
             }
         }
         else {
-            try {
-                load(new FileInputStream(propsFile));
-            }
-            catch (FileNotFoundException e) {
-                throw new PropertiesFileException("file.err.ioe", filePath);
-            }
+            loadFile();
         }
         this.hasChanged = false;
+        keysChanged();
+        valuesChanged();
     }
 
     /**
@@ -296,44 +436,574 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (zip != null) {
             throw new PropertiesFileException("Saving is not supported with PropertiesFiles inside of Zip/Jar files");
         }
-        if (!hasChanged && !force) {
-            return;
+        byte[] data;
+        long copy;
+        synchronized (this) { // Copied under the same lock as Edit.commit, then written outside it
+            if (!hasChanged && !force) {
+                return;
+            }
+            if (writeBehind != null && !force) {
+                writeBehind.request();
+                return;
+            }
+            data = serialize();
+            copy = ++copies;
+            this.hasChanged = false; // Cleared with the copy so changes made while writing are saved next time
+        }
+        try {
+            write(data, copy);
+        }
+        catch (PropertiesFileException pfex) {
+            this.hasChanged = true;
+            throw pfex;
+        }
+    }
+
+    /** Writes a copy of the contents to the file, unless a newer copy was written already */
+    private void write(byte[] data, long copy) {
+        synchronized (writeLock) {
+            if (copy < written) {
+                return;
+            }
+            written = copy;
+            writeFile(data);
+        }
+    }
+
+    /** Writes the file, guarded by writeLock */
+    private void writeFile(byte[] data) {
+        byte[] digest = digest(data);
+        propsFile = new File(filePath);
+        if (savedDigest != null && MessageDigest.isEqual(digest, savedDigest)
+                && propsFile.length() == savedLength && propsFile.lastModified() == savedModified) {
+            return; // Same bytes as the untouched file on disk
         }
-        PrintWriter out = null;
+        File temp = null;
+        FileOutputStream out = null;
         try {
-            if (propsFile.exists()) {
-                if (!propsFile.delete()) {
+            File dir = propsFile.getAbsoluteFile().getParentFile();
+            temp = File.createTempFile(propsFile.getName(), ".tmp", dir);
+            out = new FileOutputStream(temp);
+            out.write(data);
+            if (syncOnSave) {
+                out.getFD().sync();
+            }
+            out.close();
+            out = null;
+            if (!temp.renameTo(propsFile)) {
+                // Some platforms (ie: Windows) will not rename over an existing file
+                if (!propsFile.delete() || !temp.renameTo(propsFile)) {
                     throw new PropertiesFileException("file.err.ioe", filePath);
                 }
             }
-            propsFile = new File(filePath);
-            out = new PrintWriter(new FileWriter(propsFile, true));
+            temp = null;
+        }
+        catch (IOException ioe) {
+            UtilsLogger.severe(String.format("An IOException occurred in File: '%s'", filePath), ioe);
+            throw new PropertiesFileException("file.err.ioe", filePath);
+        }
+        finally {
+            if (out != null) {
+                try {
+                    out.close();
+                }
+                catch (IOException e) {
+                    //do nothing
+                }
+            }
+            if (temp != null && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+        this.savedDigest = digest;
+        this.savedLength = propsFile.length();
+        this.savedModified = propsFile.lastModified();
+        if (loadOptions.contains(LoadOption.SNAPSHOT)) {
+            try {
+                // Made from the written text, so it always matches what scanning the file would give
+                PropertiesSnapshot.scan(data).write(PropertiesSnapshot.sidecar(propsFile), data.length, savedModified, PropertiesSnapshot.checksum(data));
+            }
+            catch (IOException ioe) {
+                UtilsLogger.warning(String.format("Failed to write the snapshot of File: '%s'", filePath));
+            }
+        }
+    }
+
+    /**
+     * Sets whether saving forces the written file to disk before it replaces the old file
+     *
+     * @param sync
+     *         {@code true} to sync on save; {@code false} to leave flushing to the operating system
+     */
+    public final void setSyncOnSave(boolean sync) {
+        this.syncOnSave = sync;
+    }
+
+    /**
+     * Checks whether saving forces the written file to disk before it replaces the old file
+     *
+     * @return {@code true} if syncing on save; {@code false} otherwise
+     */
+    public final boolean isSyncOnSave() {
+        return syncOnSave;
+    }
+
+    /**
+     * Turns on write behind saving
+     * <p/>
+     * While on, {@link #save()} only marks the file to be saved. The file is written in the background once no save
+     * has been requested for the quiet period, so a burst of saves becomes a single write.
+     * {@link #forceSave()} and {@link #flush()} still write right away and pending writes are flushed on shutdown.<br>
+     * The background write copies the contents while locked on this PropertiesFile and writes the copy outside the lock;
+     * changes made from other threads while writes are pending should lock on it as well.
+     *
+     * @param quietPeriod
+     *         how long to wait after the last save request before writing
+     * @param unit
+     *         the {@link TimeUnit} of the quiet period
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         if quietPeriod is negative or zero or unit is null
+     */
+    public final synchronized void setWriteBehind(long quietPeriod, TimeUnit unit) {
+        notNegativeOrZero(quietPeriod, "long quietPeriod");
+        notNull(unit, "TimeUnit unit");
+        flush();
+        this.writeBehind = new WriteBehindSaver(new Runnable() {
+            @Override
+            public void run() {
+                writeBehind();
+            }
+        }, unit.toNanos(quietPeriod));
+    }
+
+    /** Turns off write behind saving, writing any pending save first */
+    public final synchronized void disableWriteBehind() {
+        flush();
+        this.writeBehind = null;
+    }
+
+    /**
+     * Checks whether write behind saving is on
+     *
+     * @return {@code true} if saves are written in the background; {@code false} otherwise
+     */
+    public final synchronized boolean isWriteBehind() {
+        return writeBehind != null;
+    }
+
+    /**
+     * Writes a pending write behind save now
+     *
+     * @throws PropertiesFileException
+     *         if an exception occurs while writing the file
+     */
+    public final void flush() {
+        WriteBehindSaver saver;
+        synchronized (this) {
+            saver = writeBehind;
+        }
+        if (saver != null) {
+            saver.flush();
+        }
+    }
+
+    /** Performs the write behind save */
+    private void writeBehind() {
+        if (!hasChanged) {
+            return; // Already saved
+        }
+        try {
+            save(true);
+        }
+        catch (UtilityException uex) {
+            UtilsLogger.severe(String.format("Failed to save File: '%s'", filePath), uex);
+        }
+    }
+
+    /**
+     * Starts a batch of changes that are applied together by {@link Edit#commit()}
+     *
+     * @return a new {@link Edit}
+     */
+    public final Edit edit() {
+        return new Edit();
+    }
+
+    /**
+     * A batch of changes to a PropertiesFile
+     * <p/>
+     * Changes are only recorded until {@link #commit()}, which applies all of them at once while locked on the PropertiesFile,
+     * so threads that lock on it never see half of a batch. Caches and handles are updated once per changed key and the
+     * file is marked changed once, however many keys the batch holds.<br>
+     * The last change made to a key wins. An Edit is meant to be used by one thread and may be reused after committing.
+     */
+    public final class Edit {
+        private final LinkedHashMap<String, Change> changes = new LinkedHashMap<String, Change>();
+
+        private Edit() {
+        }
+
+        /**
+         * Sets a {@link String} value, see {@link PropertiesFile#setString(String, String, String...)}
+         *
+         * @param key
+         *         the property key
+         * @param value
+         *         the property value
+         * @param comment
+         *         the comments to add if the value changes
+         *
+         * @return this edit
+         *
+         * @throws java.lang.NullPointerException
+         *         if {@code key} or {@code value} is null
+         * @throws java.lang.IllegalArgumentException
+         *         if {@code key} is empty
+         */
+        public final Edit setString(String key, String value, String... comment) {
+            notNull(value, "String value");
+            return change(key, value, null, comment);
+        }
+
+        /**
+         * Sets a {@code byte} value, see {@link PropertiesFile#setByte(String, byte, String...)}
+         *
+         * @param key
+         *         the property key
+         * @param value
+         *         the property value
+         * @param comment
+         *         the comments to add if the value changes
+         *
+         * @return this edit
+         *
+         * @throws java.lang.NullPointerException
+         *         if {@code key} is null
+         * @throws java.lang.IllegalArgumentException
+         *         if {@code key} is empty
+         */
+        public final Edit setByte(String key, byte value, String... comment) {
+            Slot slot = new Slot();
+            slot.setIntegral(value);
+            return change(key, String.valueOf(value), slot, comment);
+        }
+
+        /**
+         * Sets a {@code short} value, see {@link PropertiesFile#setShort(String, short, String...)}
+         *
+         * @param key
+         *         the property key
+         * @param value
+         *         the property value
+         * @param comment
+         *         the comments to add if the value changes
+         *
+         * @return this edit
+         *
+         * @throws java.lang.NullPointerException
+         *         if {@code key} is null
+         * @throws java.lang.IllegalArgumentException
+         *         if {@code key} is empty
+         */
+        public final Edit setShort(String key, short value, String... comment) {
+            Slot slot = new Slot();
+            slot.setIntegral(value);
+            return change(key, String.valueOf(value), slot, comment);
+        }
+
+        /**
+         * Sets a {@code int} value, see {@link PropertiesFile#setInt(String, int, String...)}
+         *
+         * @param key
+         *         the property key
+         * @param value
+         *         the property value
+         * @param comment
+         *         the comments to add if the value changes
+         *
+         * @return this edit
+         *
+         * @throws java.lang.NullPointerException
+         *         if {@code key} is null
+         * @throws java.lang.IllegalArgumentException
+         *         if {@code key} is empty
+         */
+        public final Edit setInt(String key, int value, String... comment) {
+            Slot slot = new Slot();
+            slot.setIntegral(value);
+            return change(key, String.valueOf(value), slot, comment);
+        }
+
+        /**
+         * Sets a {@code long} value, see {@link PropertiesFile#setLong(String, long, String...)}
+         *
+         * @param key
+         *         the property key
+         * @param value
+         *         the property value
+         * @param comment
+         *         the comments to add if the value changes
+         *
+         * @return this edit
+         *
+         * @throws java.lang.NullPointerException
+         *         if {@code key} is null
+         * @throws java.lang.IllegalArgumentException
+         *         if {@code key} is empty
+         */
+        public final Edit setLong(String key, long value, String... comment) {
+            Slot slot = new Slot();
+            slot.setIntegral(value);
+            return change(key, String.valueOf(value), slot, comment);
+        }
+
+        /**
+         * Sets a {@code float} value, see {@link PropertiesFile#setFloat(String, float, String...)}
+         *
+         * @param key
+         *         the property key
+         * @param value
+         *         the property value
+         * @param comment
+         *         the comments to add if the value changes
+         *
+         * @return this edit
+         *
+         * @throws java.lang.NullPointerException
+         *         if {@code key} is null
+         * @throws java.lang.IllegalArgumentException
+         *         if {@code key} is empty
+         */
+        public final Edit setFloat(String key, float value, String... comment) {
+            Slot slot = new Slot();
+            slot.setFloating(value);
+            return change(key, String.valueOf(value), slot, comment);
+        }
+
+        /**
+         * Sets a {@code double} value, see {@link PropertiesFile#setDouble(String, double, String...)}
+         *
+         * @param key
+         *         the property key
+         * @param value
+         *         the property value
+         * @param comment
+         *         the comments to add if the value changes
+         *
+         * @return this edit
+         *
+         * @throws java.lang.NullPointerException
+         *         if {@code key} is null
+         * @throws java.lang.IllegalArgumentException
+         *         if {@code key} is empty
+         */
+        public final Edit setDouble(String key, double value, String... comment) {
+            Slot slot = new Slot();
+            slot.setFloating(value);
+            return change(key, String.valueOf(value), slot, comment);
+        }
+
+        /**
+         * Sets a {@code boolean} value, see {@link PropertiesFile#setBoolean(String, boolean, String...)}
+         *
+         * @param key
+         *         the property key
+         * @param value
+         *         the property value
+         * @param comment
+         *         the comments to add if the value changes
+         *
+         * @return this edit
+         *
+         * @throws java.lang.NullPointerException
+         *         if {@code key} is null
+         * @throws java.lang.IllegalArgumentException
+         *         if {@code key} is empty
+         */
+        public final Edit setBoolean(String key, boolean value, String... comment) {
+            Slot slot = new Slot();
+            slot.setBoolean(value);
+            return change(key, String.valueOf(value), slot, comment);
+        }
+
+        /**
+         * Removes a key, see {@link PropertiesFile#removeKey(String)}
+         *
+         * @param key
+         *         the property key
+         *
+         * @return this edit
+         *
+         * @throws java.lang.NullPointerException
+         *         if {@code key} is null
+         * @throws java.lang.IllegalArgumentException
+         *         if {@code key} is empty
+         */
+        public final Edit removeKey(String key) {
+            return change(key, null, null, (String[]) null);
+        }
+
+        /**
+         * Applies all changes at once
+         *
+         * @return the number of keys that changed
+         */
+        public final int commit() {
+            synchronized (PropertiesFile.this) {
+                List<String> changed = new ArrayList<String>(changes.size());
+                for (Map.Entry<String, Change> entry : changes.entrySet()) {
+                    String key = entry.getKey();
+                    Change change = entry.getValue();
+                    if (change.value == null) {
+                        if (props.remove(key) == null) {
+                            continue;
+                        }
+                        parsed.remove(key);
+                        comments.remove(key);
+                        keysChanged();
+                    }
+                    else {
+                        if (change.value.equals(props.get(key))) {
+                            continue;
+                        }
+                        put(key, change.value);
+                        if (change.slot != null) {
+                            parsed.put(key, change.slot);
+                        }
+                        else {
+                            parsed.remove(key);
+                        }
+                        addComment(key, change.comment);
+                    }
+                    changed.add(key);
+                }
+                changes.clear();
+                for (String key : changed) {
+                    valueChanged(key); // Once everything is applied, so handles never see half of the batch
+                }
+                if (!changed.isEmpty()) {
+                    hasChanged = true;
+                }
+                return changed.size();
+            }
+        }
+
+        /**
+         * Applies all changes at once and saves the file
+         *
+         * @return the number of keys that changed
+         *
+         * @throws PropertiesFileException
+         *         if an exception occurs while writing the file
+         */
+        public final int commitAndSave() {
+            synchronized (PropertiesFile.this) {
+                int changed = commit();
+                save();
+                return changed;
+            }
+        }
+
+        private Edit change(String key, String value, Slot slot, String[] comment) {
+            notNull(key, "String key");
+            notEmpty(key, "String key");
+            changes.put(key, new Change(value, slot, comment));
+            return this;
+        }
+    }
+
+    /** One recorded change of an {@link Edit} */
+    private static final class Change {
+        private final String value; // null to remove
+        private final Slot slot; // parsed form of the value, if known
+        private final String[] comment;
+
+        private Change(String value, Slot slot, String[] comment) {
+            this.value = value;
+            this.slot = slot;
+            this.comment = comment;
+        }
+    }
+
+    /** Sets a value, marking the key index outdated if the key is new */
+    private void put(String key, String value) {
+        if (props.put(key, value) == null) {
+            keysChanged();
+        }
+    }
+
+    /** Gets the slot for a key, creating it if {@code slot} is {@code null} */
+    private Slot slot(String key, Slot slot) {
+        if (slot == null) {
+            slot = new Slot();
+            parsed.put(key, slot);
+        }
+        return slot;
+    }
+
+    /** Gets an empty slot for a key that is being given a new value */
+    private Slot reset(String key) {
+        Slot slot = slot(key, parsed.get(key));
+        slot.number = Slot.NONE;
+        slot.bool = Slot.NONE;
+        slot.array = null;
+        return slot;
+    }
+
+    /** Gets the cached array of a key if it was split at the same delimiter, {@code null} otherwise */
+    private Object array(String key, String delimiter) {
+        Slot slot = parsed.get(key);
+        return slot != null && slot.array != null && slot.delimiter.equals(delimiter) ? slot.array : null;
+    }
+
+    /** Writes the header, properties and footer into one buffer */
+    private byte[] serialize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try {
+            Writer out = new OutputStreamWriter(bytes, "UTF-8");
             for (String headerLn : header) {
-                out.println(headerLn);
+                out.write(headerLn);
+                out.write(SystemUtils.LINE_SEP);
             }
-            for (String prop : props.keySet()) {
-                if (comments.containsKey(prop)) {
-                    for (String comment : comments.get(prop)) {
-                        out.println(comment);
+            for (Map.Entry<String, String> prop : props.entrySet()) {
+                List<String> propComments = comments.get(prop.getKey());
+                if (propComments != null) {
+                    for (String comment : propComments) {
+                        out.write(comment);
+                        out.write(SystemUtils.LINE_SEP);
                     }
                 }
-                String inLineC = inlineCom.get(prop);
-                out.println(prop.concat("=").concat(props.get(prop).replace("#!", "\\#\\!").concat(inLineC == null ? "" : " #!".concat(inLineC))));
+                out.write(prop.getKey());
+                out.write('=');
+                out.write(prop.getValue().replace("#!", "\\#\\!"));
+                String inLineC = inlineCom.get(prop.getKey());
+                if (inLineC != null) {
+                    out.write(" #!");
+                    out.write(inLineC);
+                }
+                out.write(SystemUtils.LINE_SEP);
             }
             for (String footerLn : footer) {
-                out.println(footerLn);
+                out.write(footerLn);
+                out.write(SystemUtils.LINE_SEP);
             }
+            out.close();
         }
         catch (IOException ioe) {
-            UtilsLogger.severe(String.format("An IOException occurred in File: '%s'", filePath), ioe);
+            // ByteArrayOutputStream does not throw
             throw new PropertiesFileException("file.err.ioe", filePath);
         }
-        finally {
-            if (out != null) {
-                out.close();
-            }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] digest(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(data);
+        }
+        catch (NoSuchAlgorithmException nsaex) {
+            throw new UtilityException("sum.fail", "SHA-1");
         }
-        this.hasChanged = false; // Changes stored
     }
 
     /**
@@ -381,9 +1051,12 @@ public final class PropertiesFile extends AbstractPropertiesFile {
     public final void removeKey(String key) {
         if (containsKey(key)) {
             props.remove(key);
+            parsed.remove(key);
+            keysChanged();
             if (comments.containsKey(key)) {
                 comments.remove(key);
             }
+            valueChanged(key);
             this.hasChanged = true;
         }
     }
@@ -404,9 +1077,12 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         for (String key : keys) {
             if (containsKey(key)) {
                 props.remove(key);
+                parsed.remove(key);
+                keysChanged();
                 if (comments.containsKey(key)) {
                     comments.remove(key);
                 }
+                valueChanged(key);
                 this.hasChanged = true;
             }
         }
@@ -482,14 +1158,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (value.equals(props.get(key))) {
             return;
         }
-        if (numberCache.containsKey(key)) {
-            numberCache.remove(key); // Don't bother checking if the value was suppose to be a number
-        }
-        if (booleanCache.containsKey(key)) {
-            booleanCache.remove(key); // Don't bother checking if the value was suppose to be a number
-        }
-        props.put(key, value);
+        parsed.remove(key); // Don't bother checking if the value was suppose to be a number
+        put(key, value);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -625,8 +1297,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (joinedValue.equals(props.get(key))) {
             return;
         }
-        props.put(key, joinedValue);
+        parsed.remove(key);
+        put(key, joinedValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -646,12 +1320,13 @@ public final class PropertiesFile extends AbstractPropertiesFile {
     public final byte getByte(String key) {
         notNull(key, "String key");
 
-        if (numberCache.containsKey(key)) { // Caching check
-            return numberCache.get(key).byteValue();
+        Slot slot = parsed.get(key);
+        if (slot != null && slot.number != Slot.NONE) { // Caching check
+            return slot.byteValue();
         }
         try {
             byte value = Byte.decode(getString(key)); // decode
-            numberCache.put(key, value); // Cache
+            slot(key, slot).setIntegral(value); // Cache
             return value;
         }
         catch (NumberFormatException nfe) {
@@ -712,9 +1387,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strVal.equals(props.get(key))) {
             return;
         }
-        numberCache.put(key, value);
-        props.put(key, strVal);
+        reset(key).setIntegral(value);
+        put(key, strVal);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -850,8 +1526,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strValue.equals(props.get(key))) {
             return;
         }
-        props.put(key, strValue);
+        parsed.remove(key);
+        put(key, strValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -871,12 +1549,13 @@ public final class PropertiesFile extends AbstractPropertiesFile {
     public final short getShort(String key) {
         notNull(key, "String key");
 
-        if (numberCache.containsKey(key)) {
-            return numberCache.get(key).shortValue();
+        Slot slot = parsed.get(key);
+        if (slot != null && slot.number != Slot.NONE) {
+            return slot.shortValue();
         }
         try {
             short value = Short.decode(getString(key));
-            numberCache.put(key, value);
+            slot(key, slot).setIntegral(value);
             return value;
         }
         catch (NumberFormatException nfe) {
@@ -937,9 +1616,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strValue.equals(props.get(key))) {
             return;
         }
-        numberCache.put(key, value);
-        props.put(key, strValue);
+        reset(key).setIntegral(value);
+        put(key, strValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -1075,8 +1755,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strValue.equals(props.get(key))) {
             return;
         }
-        props.put(key, strValue);
+        parsed.remove(key);
+        put(key, strValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -1096,12 +1778,13 @@ public final class PropertiesFile extends AbstractPropertiesFile {
     public final int getInt(String key) {
         notNull(key, "String key");
 
-        if (numberCache.containsKey(key)) {
-            return numberCache.get(key).intValue();
+        Slot slot = parsed.get(key);
+        if (slot != null && slot.number != Slot.NONE) {
+            return slot.intValue();
         }
         try {
             int value = Integer.decode(getString(key));
-            numberCache.put(key, value);
+            slot(key, slot).setIntegral(value);
             return value;
         }
         catch (NumberFormatException nfe) {
@@ -1162,9 +1845,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strValue.equals(props.get(key))) {
             return;
         }
-        numberCache.put(key, value);
-        props.put(key, strValue);
+        reset(key).setIntegral(value);
+        put(key, strValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -1245,7 +1929,13 @@ public final class PropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final int[] getIntArray(String key, String delimiter) {
-        return StringUtils.stringToIntArray(getString(key), delimiter);
+        Object cached = array(key, delimiter);
+        if (cached instanceof int[]) {
+            return ((int[]) cached).clone(); // Callers may change their copy
+        }
+        int[] value = StringUtils.stringToIntArray(getString(key), delimiter);
+        slot(key, parsed.get(key)).setArray(value, delimiter);
+        return value.clone();
     }
 
     /**
@@ -1260,7 +1950,7 @@ public final class PropertiesFile extends AbstractPropertiesFile {
     public final int[] getIntArray(String key, String delimiter, int[] def) {
         if (containsKey(key)) {
             try {
-                return StringUtils.stringToIntArray(getString(key), delimiter);
+                return getIntArray(key, delimiter);
             }
             catch (NumberFormatException nfex) {
                 // Continue with default
@@ -1300,8 +1990,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strValue.equals(props.get(key))) {
             return;
         }
-        props.put(key, strValue);
+        parsed.remove(key);
+        put(key, strValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -1321,12 +2013,13 @@ public final class PropertiesFile extends AbstractPropertiesFile {
     public final long getLong(String key) {
         notNull(key, "String key");
 
-        if (numberCache.containsKey(key)) {
-            return numberCache.get(key).longValue();
+        Slot slot = parsed.get(key);
+        if (slot != null && slot.number != Slot.NONE) {
+            return slot.longValue();
         }
         try {
             long value = Long.decode(getString(key));
-            numberCache.put(key, value);
+            slot(key, slot).setIntegral(value);
             return value;
         }
         catch (NumberFormatException nfe) {
@@ -1387,9 +2080,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strValue.equals(props.get(key))) {
             return;
         }
-        numberCache.put(key, value);
-        props.put(key, strValue);
+        reset(key).setIntegral(value);
+        put(key, strValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -1470,7 +2164,13 @@ public final class PropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final long[] getLongArray(String key, String delimiter) {
-        return StringUtils.stringToLongArray(getString(key), delimiter);
+        Object cached = array(key, delimiter);
+        if (cached instanceof long[]) {
+            return ((long[]) cached).clone(); // Callers may change their copy
+        }
+        long[] value = StringUtils.stringToLongArray(getString(key), delimiter);
+        slot(key, parsed.get(key)).setArray(value, delimiter);
+        return value.clone();
     }
 
     /**
@@ -1485,7 +2185,7 @@ public final class PropertiesFile extends AbstractPropertiesFile {
     public final long[] getLongArray(String key, String delimiter, long[] def) {
         if (containsKey(key)) {
             try {
-                return StringUtils.stringToLongArray(getString(key), delimiter);
+                return getLongArray(key, delimiter);
             }
             catch (NumberFormatException nfex) {
                 // Continue with default
@@ -1525,8 +2225,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strValue.equals(props.get(key))) {
             return;
         }
-        props.put(key, strValue);
+        parsed.remove(key);
+        put(key, strValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -1545,12 +2247,13 @@ public final class PropertiesFile extends AbstractPropertiesFile {
     @Override
     public final float getFloat(String key) {
         notNull(key, "String key");
-        if (numberCache.containsKey(key)) {
-            return numberCache.get(key).floatValue();
+        Slot slot = parsed.get(key);
+        if (slot != null && slot.number != Slot.NONE) {
+            return slot.floatValue();
         }
         try {
             float value = Float.parseFloat(getString(key));
-            numberCache.put(key, value);
+            slot(key, slot).setFloating(value);
             return value;
         }
         catch (NumberFormatException nfe) {
@@ -1611,9 +2314,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strValue.equals(props.get(key))) {
             return;
         }
-        numberCache.put(key, value);
-        props.put(key, strValue);
+        reset(key).setFloating(value);
+        put(key, strValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -1749,8 +2453,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strValue.equals(props.get(key))) {
             return;
         }
-        props.put(key, strValue);
+        parsed.remove(key);
+        put(key, strValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -1769,12 +2475,13 @@ public final class PropertiesFile extends AbstractPropertiesFile {
     @Override
     public final double getDouble(String key) {
         notNull(key, "String key");
-        if (numberCache.containsKey(key)) {
-            return numberCache.get(key).doubleValue();
+        Slot slot = parsed.get(key);
+        if (slot != null && slot.number != Slot.NONE) {
+            return slot.doubleValue();
         }
         try {
             double value = Double.parseDouble(getString(key));
-            numberCache.put(key, value);
+            slot(key, slot).setFloating(value);
             return value;
         }
         catch (NumberFormatException nfe) {
@@ -1835,9 +2542,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strValue.equals(props.get(key))) {
             return;
         }
-        numberCache.put(key, value);
-        props.put(key, strValue);
+        reset(key).setFloating(value);
+        put(key, strValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -1918,7 +2626,13 @@ public final class PropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final double[] getDoubleArray(String key, String delimiter) {
-        return StringUtils.stringToDoubleArray(getString(key), delimiter);
+        Object cached = array(key, delimiter);
+        if (cached instanceof double[]) {
+            return ((double[]) cached).clone(); // Callers may change their copy
+        }
+        double[] value = StringUtils.stringToDoubleArray(getString(key), delimiter);
+        slot(key, parsed.get(key)).setArray(value, delimiter);
+        return value.clone();
     }
 
     /**
@@ -1933,7 +2647,7 @@ public final class PropertiesFile extends AbstractPropertiesFile {
     public final double[] getDoubleArray(String key, String delimiter, double[] def) {
         if (containsKey(key)) {
             try {
-                return StringUtils.stringToDoubleArray(getString(key), delimiter);
+                return getDoubleArray(key, delimiter);
             }
             catch (NumberFormatException nfex) {
                 // Continue with default
@@ -1973,8 +2687,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strValue.equals(props.get(key))) {
             return;
         }
-        props.put(key, strValue);
+        parsed.remove(key);
+        put(key, strValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -1990,11 +2706,12 @@ public final class PropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final boolean getBoolean(String key) {
-        if (booleanCache.containsKey(key)) {
-            return booleanCache.get(key);
+        Slot slot = parsed.get(key);
+        if (slot != null && slot.bool != Slot.NONE) {
+            return slot.bool == Slot.TRUE;
         }
         boolean value = BooleanUtils.parseBoolean(getString(key));
-        booleanCache.put(key, value);
+        slot(key, slot).setBoolean(value);
         return value;
     }
 
@@ -2047,9 +2764,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strValue.equals(props.get(key))) {
             return;
         }
-        booleanCache.put(key, value);
-        props.put(key, strValue);
+        reset(key).setBoolean(value);
+        put(key, strValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -2175,8 +2893,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strValue.equals(props.get(key))) {
             return;
         }
-        props.put(key, strValue);
+        parsed.remove(key);
+        put(key, strValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -2244,8 +2964,10 @@ public final class PropertiesFile extends AbstractPropertiesFile {
         if (strValue.equals(props.get(key))) {
             return;
         }
-        props.put(key, strValue);
+        parsed.remove(key);
+        put(key, strValue);
         addComment(key, comment);
+        valueChanged(key);
         this.hasChanged = true;
     }
 
@@ -0,0 +1,280 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static net.visualillusionsent.utils.Verify.notNegativeOrZero;
+import static net.visualillusionsent.utils.Verify.notNull;
+
+/**
+ * Properties File Watcher
+ * <p/>
+ * Reloads watched Properties Files when their backing file is changed on disk and notifies {@link Listener}s.<br>
+ * One shared daemon thread checks the size and modification time of every watched file each poll interval.
+ * A change is only reloaded once the file has stayed the same for a whole interval, so a burst of writes
+ * results in a single reload.<br>
+ * A {@link PropertiesFile} with unsaved changes is not reloaded, so those changes are not lost. Saving a watched
+ * file changes it on disk as well and is reloaded like any other change.<br>
+ * Reloads lock on the Properties File, changes to a watched {@link PropertiesFile} from other threads should lock on it as well.
+ *
+ * @author Jason (darkdiplomat)
+ * @version 1.0
+ * @since 1.4.3
+ */
+public final class PropertiesFileWatcher {
+
+    /* 1.0 @ VIUtils 1.4.3 */
+    private static final float classVersion = 1.0F;
+    /** Watched files by identity, guarded by itself */
+    private static final IdentityHashMap<AbstractPropertiesFile, Watched> watched = new IdentityHashMap<AbstractPropertiesFile, Watched>();
+    private static long pollInterval = 1000; // milliseconds, guarded by watched
+    private static Thread poller; // guarded by watched
+
+    /** Notified after a watched Properties File has been reloaded */
+    public interface Listener {
+
+        /**
+         * Called on the watcher thread after the file has been reloaded
+         *
+         * @param file
+         *         the reloaded Properties File
+         */
+        void propertiesFileReloaded(AbstractPropertiesFile file);
+    }
+
+    /** Watch state of one file */
+    private static final class Watched {
+        private final AbstractPropertiesFile file;
+        private final File source;
+        private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+        // Only touched by the poller thread
+        private long length, modified; // as last loaded
+        private long seenLength, seenModified; // change waiting to settle
+        private boolean settling;
+
+        private Watched(AbstractPropertiesFile file) {
+            this.file = file;
+            this.source = file.propsFile;
+            this.length = source.length();
+            this.modified = source.lastModified();
+        }
+    }
+
+    /** Constructions disallowed */
+    private PropertiesFileWatcher() {
+    }
+
+    /**
+     * Starts watching a Properties File
+     *
+     * @param file
+     *         the Properties File to watch
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code file} is null
+     * @throws PropertiesFileException
+     *         if {@code file} is inside of a Zip/Jar file
+     */
+    public static void watch(AbstractPropertiesFile file) {
+        watch(file, null);
+    }
+
+    /**
+     * Starts watching a Properties File, adding a {@link Listener} to be notified on reload
+     *
+     * @param file
+     *         the Properties File to watch
+     * @param listener
+     *         the {@link Listener} to add, may be {@code null}
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code file} is null
+     * @throws PropertiesFileException
+     *         if {@code file} is inside of a Zip/Jar file
+     */
+    public static void watch(AbstractPropertiesFile file, Listener listener) {
+        notNull(file, "AbstractPropertiesFile file");
+        if (file.zip != null) {
+            throw new PropertiesFileException("Watching is not supported with PropertiesFiles inside of Zip/Jar files");
+        }
+        synchronized (watched) {
+            Watched watch = watched.get(file);
+            if (watch == null) {
+                watch = new Watched(file);
+                watched.put(file, watch);
+            }
+            if (listener != null) {
+                watch.listeners.addIfAbsent(listener);
+            }
+            if (poller == null) {
+                poller = new Thread(new Poller(), "VIUtils-PropertiesFileWatcher");
+                poller.setDaemon(true);
+                poller.start();
+            }
+        }
+    }
+
+    /**
+     * Removes a {@link Listener} from a watched Properties File, the file stays watched
+     *
+     * @param file
+     *         the watched Properties File
+     * @param listener
+     *         the {@link Listener} to remove
+     */
+    public static void removeListener(AbstractPropertiesFile file, Listener listener) {
+        synchronized (watched) {
+            Watched watch = watched.get(file);
+            if (watch != null) {
+                watch.listeners.remove(listener);
+            }
+        }
+    }
+
+    /**
+     * Stops watching a Properties File
+     *
+     * @param file
+     *         the Properties File to stop watching
+     */
+    public static void unwatch(AbstractPropertiesFile file) {
+        synchronized (watched) {
+            watched.remove(file);
+            watched.notifyAll(); // Let the poller exit if nothing is left
+        }
+    }
+
+    /**
+     * Checks whether a Properties File is being watched
+     *
+     * @param file
+     *         the Properties File to check
+     *
+     * @return {@code true} if watched; {@code false} otherwise
+     */
+    public static boolean isWatched(AbstractPropertiesFile file) {
+        synchronized (watched) {
+            return watched.containsKey(file);
+        }
+    }
+
+    /**
+     * Sets how often watched files are checked, changes have to settle for one interval before they are reloaded
+     *
+     * @param interval
+     *         the poll interval
+     * @param unit
+     *         the {@link TimeUnit} of the interval
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code interval} is negative or zero or less than a millisecond
+     * @throws java.lang.NullPointerException
+     *         if {@code unit} is null
+     */
+    public static void setPollInterval(long interval, TimeUnit unit) {
+        notNull(unit, "TimeUnit unit");
+        notNegativeOrZero(unit.toMillis(interval), "long interval");
+        synchronized (watched) {
+            pollInterval = unit.toMillis(interval);
+            watched.notifyAll();
+        }
+    }
+
+    /** Checks every watched file once per interval, exits once nothing is watched */
+    private static final class Poller implements Runnable {
+
+        @Override
+        public final void run() {
+            List<Watched> toPoll;
+            for (; ; ) {
+                synchronized (watched) {
+                    try {
+                        watched.wait(pollInterval);
+                    }
+                    catch (InterruptedException iex) {
+                        // Keep watching
+                    }
+                    if (watched.isEmpty()) {
+                        poller = null;
+                        return;
+                    }
+                    toPoll = new ArrayList<Watched>(watched.values());
+                }
+                for (Watched watch : toPoll) {
+                    poll(watch);
+                }
+            }
+        }
+
+        private void poll(Watched watch) {
+            long length = watch.source.length(), modified = watch.source.lastModified();
+            if (length == watch.length && modified == watch.modified) {
+                watch.settling = false; // Changed back
+                return;
+            }
+            if (!watch.settling || length != watch.seenLength || modified != watch.seenModified) {
+                watch.settling = true; // Still being written, check again next interval
+                watch.seenLength = length;
+                watch.seenModified = modified;
+                return;
+            }
+            watch.settling = false;
+            if (modified == 0L) {
+                return; // Deleted, keep what is loaded until it comes back
+            }
+            synchronized (watch.file) {
+                watch.length = length; // Handled, even if skipped or failed
+                watch.modified = modified;
+                if (watch.file.hasChanged) {
+                    UtilsLogger.warning(String.format("File: '%s' changed on disk but has unsaved changes, not reloading", watch.file.filePath));
+                    return;
+                }
+                try {
+                    watch.file.reload();
+                }
+                catch (UtilityException uex) {
+                    UtilsLogger.severe(String.format("Failed to reload File: '%s'", watch.file.filePath), uex);
+                    return;
+                }
+            }
+            for (Listener listener : watch.listeners) {
+                try {
+                    listener.propertiesFileReloaded(watch.file);
+                }
+                catch (RuntimeException rex) {
+                    UtilsLogger.severe("A Listener threw an exception after reloading File: ".concat(watch.file.filePath), rex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets this class's version number
+     *
+     * @return the class version
+     */
+    public static float getClassVersion() {
+        return classVersion;
+    }
+}
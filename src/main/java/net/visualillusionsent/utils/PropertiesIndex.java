@@ -0,0 +1,344 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.nio.charset.Charset;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Byte offset index over the raw UTF-8 contents of a Properties File
+ * <p/>
+ * Only keys, header and footer lines are decoded while indexing. Values, comments and inline comments are kept as
+ * offsets into the file contents and decoded the first time they are asked for, then kept.<br>
+ * The grammar is the same as {@link PropertiesScanner}. Scanning works on the raw bytes since every delimiter
+ * is ASCII and can not be part of a multi-byte UTF-8 sequence.
+ *
+ * @author Jason (darkdiplomat)
+ * @since 1.4.3
+ */
+final class PropertiesIndex {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private final byte[] data;
+    private final boolean pooled; // keys and short values go through the StringPool
+    private final HashMap<String, Offsets> entries = new HashMap<String, Offsets>();
+    private final List<String> header = new ArrayList<String>();
+    private final List<String> footer = new ArrayList<String>();
+    private int inlineCount, commentCount;
+
+    /** Offsets for one property, {@code -1} starts mark missing parts */
+    private static final class Offsets {
+        private final int valueStart, valueEnd, inlineStart, inlineEnd, commentStart, commentEnd;
+        private volatile String value, inline; // decoded on demand
+        private volatile List<String> comments; // decoded on demand
+
+        private Offsets(int valueStart, int valueEnd, int inlineStart, int inlineEnd, int commentStart, int commentEnd) {
+            this.valueStart = valueStart;
+            this.valueEnd = valueEnd;
+            this.inlineStart = inlineStart;
+            this.inlineEnd = inlineEnd;
+            this.commentStart = commentStart;
+            this.commentEnd = commentEnd;
+        }
+    }
+
+    /**
+     * Indexes the contents of a Properties File
+     *
+     * @param data
+     *         the UTF-8 encoded file contents, which must not be changed afterwards
+     * @param pooled
+     *         {@code true} to share keys and short values through the {@link StringPool}
+     */
+    PropertiesIndex(byte[] data, boolean pooled) {
+        this.data = data;
+        this.pooled = pooled;
+        int pos = 0;
+        int[] pending = new int[]{ -1, -1 }; // start and end of the comment lines before the next property
+        while (pos < data.length) {
+            int end = pos;
+            while (end < data.length && data[end] != '\n' && data[end] != '\r') {
+                end++;
+            }
+            line(pos, end, pending);
+            pos = end;
+            if (pos < data.length) {
+                pos += data[pos] == '\r' && pos + 1 < data.length && data[pos + 1] == '\n' ? 2 : 1;
+            }
+        }
+    }
+
+    private void line(int start, int end, int[] pending) {
+        if (start < end && (data[start] == ';' || data[start] == '#')) {
+            if (isHeader(start, end)) {
+                header.add(decode(start, end));
+            }
+            else if (isFooter(start, end)) {
+                footer.add(decode(start, end));
+            }
+            else {
+                if (pending[0] < 0) {
+                    pending[0] = start;
+                }
+                pending[1] = end;
+            }
+            return;
+        }
+        int equals = start;
+        while (equals < end && data[equals] != '=') {
+            equals++;
+        }
+        if (equals == end) {
+            pending[0] = pending[1] = -1; //Incomplete property, drop reference
+            return;
+        }
+        int valueEnd = end, inlineStart = -1, inlineEnd = -1;
+        int inline = inlineStart(equals + 1, end);
+        if (inline >= 0) {
+            valueEnd = inline;
+            inlineEnd = inlineStart(inline + 2, end);
+            if (inlineEnd < 0) {
+                inlineEnd = end;
+            }
+            if (inlineEnd > inline + 2) {
+                inlineStart = inline + 2;
+            }
+        }
+        Offsets entry = new Offsets(equals + 1, valueEnd, inlineStart, inlineEnd, pending[0], pending[1]);
+        String key = trimmed(start, equals);
+        Offsets previous = entries.put(pooled ? StringPool.pooled(key) : key, entry);
+        if (previous != null) {
+            inlineCount -= previous.inlineStart >= 0 ? 1 : 0;
+            commentCount -= previous.commentStart >= 0 ? 1 : 0;
+        }
+        inlineCount += inlineStart >= 0 ? 1 : 0;
+        commentCount += pending[0] >= 0 ? 1 : 0;
+        pending[0] = pending[1] = -1;
+    }
+
+    private boolean isHeader(int start, int end) {
+        return end - start > 1 && data[start] == ';' && data[start + 1] == '#';
+    }
+
+    private boolean isFooter(int start, int end) {
+        return end - start > 1 && data[start] == '#' && data[start + 1] == ';';
+    }
+
+    private int inlineStart(int start, int end) {
+        for (int index = start; index < end - 1; index++) {
+            if (data[index] == '#' && data[index + 1] == '!') {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private String decode(int start, int end) {
+        return start == end ? "" : new String(data, start, end - start, UTF8);
+    }
+
+    /** Trims like {@link String#trim()}, bytes of multi-byte sequences are negative and never trimmed */
+    private String trimmed(int start, int end) {
+        while (start < end && data[start] >= 0 && data[start] <= ' ') {
+            start++;
+        }
+        while (end > start && data[end - 1] >= 0 && data[end - 1] <= ' ') {
+            end--;
+        }
+        return decode(start, end);
+    }
+
+    private String value(Offsets entry) {
+        String value = entry.value;
+        if (value == null) {
+            value = trimmed(entry.valueStart, entry.valueEnd);
+            if (value.indexOf("\\#\\!") >= 0) {
+                value = value.replace("\\#\\!", "#!"); //remove escape sequence
+            }
+            if (pooled) {
+                value = StringPool.pooledValue(value);
+            }
+            entry.value = value; // a racing decode just repeats the work
+        }
+        return value;
+    }
+
+    private String inline(Offsets entry) {
+        if (entry.inlineStart < 0) {
+            return null;
+        }
+        String inline = entry.inline;
+        if (inline == null) {
+            inline = entry.inline = decode(entry.inlineStart, entry.inlineEnd); // Don't trim the comment
+        }
+        return inline;
+    }
+
+    private List<String> comments(Offsets entry) {
+        if (entry.commentStart < 0) {
+            return null;
+        }
+        List<String> comments = entry.comments;
+        if (comments == null) {
+            LinkedList<String> lines = new LinkedList<String>();
+            int pos = entry.commentStart;
+            while (pos < entry.commentEnd) {
+                int end = pos;
+                while (end < entry.commentEnd && data[end] != '\n' && data[end] != '\r') {
+                    end++;
+                }
+                // Header and footer lines may sit between the comments, but blank lines can not
+                if (end > pos && !isHeader(pos, end) && !isFooter(pos, end)) {
+                    lines.add(decode(pos, end));
+                }
+                pos = end + 1;
+            }
+            comments = entry.comments = Collections.unmodifiableList(lines);
+        }
+        return comments;
+    }
+
+    /** @return the header lines */
+    final List<String> header() {
+        return header;
+    }
+
+    /** @return the footer lines */
+    final List<String> footer() {
+        return footer;
+    }
+
+    /** @return an unmodifiable map of keys to values, decoding values as they are read */
+    final Map<String, String> values() {
+        return new View<String>(-1) {
+            @Override
+            String valueOf(Offsets entry) {
+                return value(entry);
+            }
+        };
+    }
+
+    /** @return an unmodifiable map of keys to inline comments, decoding comments as they are read */
+    final Map<String, String> inlineComments() {
+        return new View<String>(inlineCount) {
+            @Override
+            String valueOf(Offsets entry) {
+                return inline(entry);
+            }
+        };
+    }
+
+    /** @return an unmodifiable map of keys to comment lines, decoding comments as they are read */
+    final Map<String, List<String>> comments() {
+        return new View<List<String>>(commentCount) {
+            @Override
+            List<String> valueOf(Offsets entry) {
+                return comments(entry);
+            }
+        };
+    }
+
+    /** Read only map over the index that leaves out keys without a value of its kind */
+    private abstract class View<V> extends AbstractMap<String, V> {
+        private final int size;
+        private Set<Map.Entry<String, V>> entrySet;
+
+        View(int size) {
+            this.size = size;
+        }
+
+        abstract V valueOf(Offsets entry);
+
+        @Override
+        public final V get(Object key) {
+            Offsets entry = entries.get(key);
+            return entry == null ? null : valueOf(entry);
+        }
+
+        @Override
+        public final boolean containsKey(Object key) {
+            Offsets entry = entries.get(key);
+            return entry != null && (size < 0 || valueOf(entry) != null); // every key has a value
+        }
+
+        @Override
+        public final int size() {
+            return size < 0 ? entries.size() : size;
+        }
+
+        @Override
+        public final Set<Map.Entry<String, V>> entrySet() {
+            if (entrySet == null) {
+                entrySet = new AbstractSet<Map.Entry<String, V>>() {
+                    @Override
+                    public Iterator<Map.Entry<String, V>> iterator() {
+                        return new ViewIterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return View.this.size();
+                    }
+                };
+            }
+            return entrySet;
+        }
+
+        private final class ViewIterator implements Iterator<Map.Entry<String, V>> {
+            private final Iterator<Map.Entry<String, Offsets>> itr = entries.entrySet().iterator();
+            private Map.Entry<String, V> next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && itr.hasNext()) {
+                    Map.Entry<String, Offsets> entry = itr.next();
+                    V value = valueOf(entry.getValue());
+                    if (value != null) {
+                        next = new SimpleImmutableEntry<String, V>(entry.getKey(), value);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Map.Entry<String, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<String, V> toRet = next;
+                next = null;
+                return toRet;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import static net.visualillusionsent.utils.Verify.notNull;
+
+/**
+ * Properties Reader
+ * <p/>
+ * Streams the contents of a Properties File to a {@link Handler} without storing any of it, for files too large to be
+ * loaded or when only a part of them is needed.<br>
+ * The format is the same one {@link PropertiesFile} reads: lines starting with {@literal ;#} are header comments,
+ * lines starting with {@literal #;} are footer comments, other lines starting with ; or # are comments and
+ * #! starts an inline comment. Only the current line is held in memory, whatever the size of the file.
+ *
+ * @author Jason (darkdiplomat)
+ * @version 1.0
+ * @since 1.4.3
+ */
+public final class PropertiesReader {
+
+    /* 1.0 @ VIUtils 1.4.3 */
+    private static final float classVersion = 1.0F;
+
+    /**
+     * Receives the contents of a Properties File in the order they appear<br>
+     * Every method does nothing by default, so only the needed ones have to be overridden
+     */
+    public static abstract class Handler {
+
+        /**
+         * Called for a header line
+         *
+         * @param line
+         *         the complete line including the {@literal ;#} prefix
+         */
+        public void header(String line) {
+        }
+
+        /**
+         * Called for a footer line
+         *
+         * @param line
+         *         the complete line including the {@literal #;} prefix
+         */
+        public void footer(String line) {
+        }
+
+        /**
+         * Called for a comment line, the comments directly before a property belong to it
+         *
+         * @param line
+         *         the complete line including the ; or # prefix
+         */
+        public void comment(String line) {
+        }
+
+        /**
+         * Called for a property
+         *
+         * @param key
+         *         the trimmed key
+         * @param value
+         *         the trimmed and unescaped value
+         * @param inlineComment
+         *         the untrimmed inline comment or {@code null} if there is none
+         */
+        public void property(String key, String value, String inlineComment) {
+        }
+    }
+
+    /** Constructions disallowed */
+    private PropertiesReader() {
+    }
+
+    /**
+     * Reads a Properties File
+     *
+     * @param file
+     *         the file to read
+     * @param handler
+     *         the {@link Handler} to receive the contents
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code file} or {@code handler} is null
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading the file
+     */
+    public static void read(File file, Handler handler) {
+        notNull(file, "File file");
+        notNull(handler, "Handler handler");
+
+        Reader in = null;
+        try {
+            in = new InputStreamReader(new FileInputStream(file), "UTF-8");
+            scan(in, handler);
+        }
+        catch (IOException ioe) {
+            UtilsLogger.severe(String.format("An IOException occurred in File: '%s'", file.getPath()), ioe);
+            throw new PropertiesFileException("file.err.ioe", file.getPath());
+        }
+        finally {
+            if (in != null) {
+                try {
+                    in.close();
+                }
+                catch (IOException e) {
+                    //do nothing
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a Properties File from a UTF-8 stream, the stream is not closed
+     *
+     * @param in
+     *         the stream to read
+     * @param handler
+     *         the {@link Handler} to receive the contents
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code in} or {@code handler} is null
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading the stream
+     */
+    public static void read(InputStream in, Handler handler) {
+        notNull(in, "InputStream in");
+        notNull(handler, "Handler handler");
+
+        try {
+            scan(new InputStreamReader(in, "UTF-8"), handler);
+        }
+        catch (IOException ioe) {
+            UtilsLogger.severe("An IOException occurred while reading properties", ioe);
+            throw new PropertiesFileException("An IOException occurred while reading properties");
+        }
+    }
+
+    /**
+     * Reads a Properties File from a {@link Reader}, the reader is not closed
+     *
+     * @param reader
+     *         the reader to read
+     * @param handler
+     *         the {@link Handler} to receive the contents
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code reader} or {@code handler} is null
+     * @throws PropertiesFileException
+     *         if an exception occurs while reading
+     */
+    public static void read(Reader reader, Handler handler) {
+        notNull(reader, "Reader reader");
+        notNull(handler, "Handler handler");
+
+        try {
+            scan(reader, handler);
+        }
+        catch (IOException ioe) {
+            UtilsLogger.severe("An IOException occurred while reading properties", ioe);
+            throw new PropertiesFileException("An IOException occurred while reading properties");
+        }
+    }
+
+    private static void scan(Reader reader, final Handler handler) throws IOException {
+        new PropertiesScanner(reader).scan(new PropertiesScanner.Handler() {
+            @Override
+            public final void header(String line) {
+                handler.header(line);
+            }
+
+            @Override
+            public final void footer(String line) {
+                handler.footer(line);
+            }
+
+            @Override
+            public final void comment(String line) {
+                handler.comment(line);
+            }
+
+            @Override
+            public final void property(String key, String value, String inlineComment) {
+                handler.property(key, value, inlineComment);
+            }
+
+            @Override
+            public final void invalid() {
+                // Blank or broken lines are not part of the contents
+            }
+        });
+    }
+
+    /**
+     * Gets this class's version number
+     *
+     * @return the class version
+     */
+    public static float getClassVersion() {
+        return classVersion;
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Single pass scanner for the Properties File format
+ * <p/>
+ * Lines are read into one reusable char buffer and split at their key, value, inline comment and escape boundaries
+ * in place, so the only objects created per property are the resulting Strings.<br>
+ * Lines that start with {@literal ;#} are header comments, lines that start with {@literal #;} are footer comments and
+ * any other line starting with ; or # is a comment for the property that follows it.<br>
+ * The key ends at the first = and the value runs to the first #! (the inline comment) or the end of the line,
+ * so values may contain = themselves. An escaped \#\! inside a value is turned back into #!
+ * <p/>
+ * The source is either a {@link Reader} or a {@link ByteBuffer} of UTF-8, which is decoded straight into the scan buffer.
+ *
+ * @author Jason (darkdiplomat)
+ * @since 1.4.3
+ */
+final class PropertiesScanner {
+
+    /** Receives the parts of a properties file as they are scanned */
+    interface Handler {
+
+        /**
+         * Called for a header line
+         *
+         * @param line
+         *         the complete line including the {@literal ;#} prefix
+         */
+        void header(String line);
+
+        /**
+         * Called for a footer line
+         *
+         * @param line
+         *         the complete line including the {@literal #;} prefix
+         */
+        void footer(String line);
+
+        /**
+         * Called for a comment line
+         *
+         * @param line
+         *         the complete line including the ; or # prefix
+         */
+        void comment(String line);
+
+        /**
+         * Called for a property line
+         *
+         * @param key
+         *         the trimmed key
+         * @param value
+         *         the trimmed and unescaped value
+         * @param inlineComment
+         *         the untrimmed inline comment or {@code null} if there is none
+         */
+        void property(String key, String value, String inlineComment);
+
+        /** Called for a line that is neither a comment nor a property, such as a blank line */
+        void invalid();
+    }
+
+    private final Reader reader;
+    private final ByteBuffer bytes;
+    private final CharsetDecoder decoder;
+    private char[] buf = new char[8192];
+    private int pos, limit;
+    private boolean eof;
+
+    /**
+     * Creates a new scanner over a {@link Reader}
+     *
+     * @param reader
+     *         the reader to scan, it is not closed by the scanner
+     */
+    PropertiesScanner(Reader reader) {
+        this.reader = reader;
+        this.bytes = null;
+        this.decoder = null;
+    }
+
+    /**
+     * Creates a new scanner over UTF-8 encoded bytes, such as a memory mapped file
+     *
+     * @param bytes
+     *         the bytes to scan, from their current position to their limit
+     */
+    PropertiesScanner(ByteBuffer bytes) {
+        this.reader = null;
+        this.bytes = bytes;
+        // Same replacement behavior as an InputStreamReader
+        this.decoder = Charset.forName("UTF-8").newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Scans all remaining lines, passing each one to the {@link Handler}
+     *
+     * @param handler
+     *         the handler to receive the lines
+     *
+     * @throws IOException
+     *         if the underlying source fails to read
+     */
+    final void scan(Handler handler) throws IOException {
+        int mark = pos; // where the search for the next line end resumes
+        boolean skipLF = false; // a \r ended the last buffer, so a leading \n belongs to it
+        for (; ; ) {
+            if (skipLF && pos < limit) {
+                if (buf[pos] == '\n') {
+                    pos++;
+                }
+                mark = pos;
+                skipLF = false;
+            }
+            int end = -1;
+            for (int index = mark; index < limit; index++) {
+                char ch = buf[index];
+                if (ch == '\n' || ch == '\r') {
+                    end = index;
+                    break;
+                }
+            }
+            if (end < 0) {
+                if (eof) {
+                    if (pos < limit) {
+                        line(pos, limit, handler);
+                        pos = limit;
+                    }
+                    return;
+                }
+                mark = limit - pos;
+                fill();
+                continue;
+            }
+            line(pos, end, handler);
+            pos = end + 1;
+            if (buf[end] == '\r') {
+                if (pos < limit) {
+                    if (buf[pos] == '\n') {
+                        pos++;
+                    }
+                }
+                else {
+                    skipLF = true;
+                }
+            }
+            mark = pos;
+        }
+    }
+
+    /** Moves the unread part of the buffer to the front, growing it for long lines, and reads more characters */
+    private void fill() throws IOException {
+        int remaining = limit - pos;
+        if (buf.length - remaining < 2) { // room for at least one surrogate pair
+            char[] grown = new char[buf.length << 1];
+            System.arraycopy(buf, pos, grown, 0, remaining);
+            buf = grown;
+        }
+        else if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, remaining);
+        }
+        pos = 0;
+        limit = remaining;
+        if (reader != null) {
+            int read = reader.read(buf, limit, buf.length - limit);
+            if (read < 0) {
+                eof = true;
+            }
+            else {
+                limit += read;
+            }
+        }
+        else if (!bytes.hasRemaining()) {
+            eof = true;
+        }
+        else {
+            CharBuffer out = CharBuffer.wrap(buf, limit, buf.length - limit);
+            decoder.decode(bytes, out, true);
+            limit = out.position();
+        }
+    }
+
+    /** Splits the line between {@code start} (inclusive) and {@code end} (exclusive) */
+    private void line(int start, int end, Handler handler) {
+        char[] chars = buf;
+        if (start < end) {
+            char first = chars[start];
+            if (first == ';' || first == '#') {
+                String line = new String(chars, start, end - start);
+                if (end - start > 1 && first == ';' && chars[start + 1] == '#') {
+                    handler.header(line);
+                }
+                else if (end - start > 1 && first == '#' && chars[start + 1] == ';') {
+                    handler.footer(line);
+                }
+                else {
+                    handler.comment(line);
+                }
+                return;
+            }
+        }
+        int equals = -1;
+        for (int index = start; index < end; index++) {
+            if (chars[index] == '=') {
+                equals = index;
+                break;
+            }
+        }
+        if (equals < 0) {
+            handler.invalid(); // Incomplete property
+            return;
+        }
+        int valueEnd = end;
+        String inlineComment = null;
+        int inline = inlineStart(chars, equals + 1, end);
+        if (inline >= 0) {
+            valueEnd = inline;
+            int commentEnd = inlineStart(chars, inline + 2, end);
+            if (commentEnd < 0) {
+                commentEnd = end;
+            }
+            if (commentEnd > inline + 2) {
+                inlineComment = new String(chars, inline + 2, commentEnd - inline - 2); // Don't trim the comment
+            }
+        }
+        handler.property(trimmed(chars, start, equals), value(chars, equals + 1, valueEnd), inlineComment);
+    }
+
+    /** Finds the next #! between {@code start} and {@code end} or -1 */
+    private static int inlineStart(char[] chars, int start, int end) {
+        for (int index = start; index < end - 1; index++) {
+            if (chars[index] == '#' && chars[index + 1] == '!') {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /** Trims the region the same way {@link String#trim()} does and creates the String for it */
+    private static String trimmed(char[] chars, int start, int end) {
+        while (start < end && chars[start] <= ' ') {
+            start++;
+        }
+        while (end > start && chars[end - 1] <= ' ') {
+            end--;
+        }
+        return start == end ? "" : new String(chars, start, end - start);
+    }
+
+    /** Trims the region and removes the \#\! escape sequence if present */
+    private static String value(char[] chars, int start, int end) {
+        while (start < end && chars[start] <= ' ') {
+            start++;
+        }
+        while (end > start && chars[end - 1] <= ' ') {
+            end--;
+        }
+        int escape = escapeStart(chars, start, end);
+        if (escape < 0) {
+            return start == end ? "" : new String(chars, start, end - start);
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        int copied = start;
+        while (escape >= 0) {
+            builder.append(chars, copied, escape - copied).append("#!");
+            copied = escape + 4;
+            escape = escapeStart(chars, copied, end);
+        }
+        return builder.append(chars, copied, end - copied).toString();
+    }
+
+    /** Finds the next \#\! escape sequence between {@code start} and {@code end} or -1 */
+    private static int escapeStart(char[] chars, int start, int end) {
+        for (int index = start; index < end - 3; index++) {
+            if (chars[index] == '\\' && chars[index + 1] == '#' && chars[index + 2] == '\\' && chars[index + 3] == '!') {
+                return index;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of a parsed Properties File, kept as a sidecar next to it
+ * <p/>
+ * The sidecar stores the length, modification time and CRC-32 of the text it was made from, followed by the header,
+ * footer and every property with its inline comment and comments as length prefixed UTF-8.
+ * It is only used while all three still match the text file, otherwise the text is scanned again.<br>
+ * A missing, stale or unreadable sidecar is never an error; it is a cache and simply gets rewritten.
+ *
+ * @author Jason (darkdiplomat)
+ * @since 1.4.3
+ */
+final class PropertiesSnapshot implements PropertiesScanner.Handler {
+
+    private static final int MAGIC = 0x56495053; // VIPS
+    private static final int FORMAT = 1;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    final LinkedHashMap<String, String> props = new LinkedHashMap<String, String>();
+    final LinkedHashMap<String, List<String>> comments = new LinkedHashMap<String, List<String>>();
+    final LinkedHashMap<String, String> inlineCom = new LinkedHashMap<String, String>();
+    final LinkedList<String> header = new LinkedList<String>();
+    final LinkedList<String> footer = new LinkedList<String>();
+    private final LinkedList<String> inComments = new LinkedList<String>(); // while scanning
+
+    private PropertiesSnapshot() {
+    }
+
+    /**
+     * Gets the sidecar of a Properties File
+     *
+     * @param source
+     *         the text file
+     *
+     * @return the sidecar, the file name with .bin appended
+     */
+    static File sidecar(File source) {
+        return new File(source.getPath().concat(".bin"));
+    }
+
+    /**
+     * Reads a whole file
+     *
+     * @param source
+     *         the file to read
+     *
+     * @return the contents
+     *
+     * @throws IOException
+     *         if the file could not be read
+     */
+    static byte[] readSource(File source) throws IOException {
+        DataInputStream in = new DataInputStream(new FileInputStream(source));
+        try {
+            byte[] data = new byte[(int) source.length()];
+            in.readFully(data);
+            return data;
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Calculates the checksum stored in the sidecar
+     *
+     * @param data
+     *         the contents of the text file
+     *
+     * @return the CRC-32 of the contents
+     */
+    static long checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        return crc.getValue();
+    }
+
+    /**
+     * Scans the text of a Properties File
+     *
+     * @param data
+     *         the UTF-8 contents of the file
+     *
+     * @return the snapshot of the contents
+     *
+     * @throws IOException
+     *         if the contents could not be decoded
+     */
+    static PropertiesSnapshot scan(byte[] data) throws IOException {
+        PropertiesSnapshot snapshot = new PropertiesSnapshot();
+        new PropertiesScanner(ByteBuffer.wrap(data)).scan(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Reads a sidecar if it was made from the given text
+     *
+     * @param sidecar
+     *         the sidecar to read
+     * @param length
+     *         the length of the text file
+     * @param modified
+     *         the modification time of the text file
+     * @param checksum
+     *         the {@link #checksum(byte[])} of the text file
+     *
+     * @return the snapshot; {@code null} if the sidecar is missing, stale or unreadable
+     */
+    static PropertiesSnapshot read(File sidecar, long length, long modified, long checksum) {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecar)));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT
+                    || in.readLong() != length || in.readLong() != modified || in.readLong() != checksum) {
+                return null; // Stale, the text is scanned again
+            }
+            PropertiesSnapshot snapshot = new PropertiesSnapshot();
+            readLines(in, snapshot.header);
+            readLines(in, snapshot.footer);
+            for (int count = in.readInt(); count > 0; count--) {
+                String key = readString(in);
+                snapshot.props.put(key, readString(in));
+                String inline = readString(in);
+                if (inline != null) {
+                    snapshot.inlineCom.put(key, inline);
+                }
+                int lines = in.readInt();
+                if (lines > 0) {
+                    List<String> keyComments = new LinkedList<String>();
+                    for (; lines > 0; lines--) {
+                        keyComments.add(readString(in));
+                    }
+                    snapshot.comments.put(key, keyComments);
+                }
+            }
+            return snapshot;
+        }
+        catch (FileNotFoundException fnfex) {
+            return null; // Not written yet
+        }
+        catch (IOException ioe) {
+            UtilsLogger.warning(String.format("Ignoring unreadable snapshot: '%s'", sidecar.getPath()));
+            return null;
+        }
+        finally {
+            if (in != null) {
+                try {
+                    in.close();
+                }
+                catch (IOException e) {
+                    //do nothing
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes this snapshot to a sidecar, replacing it once completely written
+     *
+     * @param sidecar
+     *         the sidecar to write
+     * @param length
+     *         the length of the text file
+     * @param modified
+     *         the modification time of the text file
+     * @param checksum
+     *         the {@link #checksum(byte[])} of the text file
+     */
+    final void write(File sidecar, long length, long modified, long checksum) {
+        File temp = null;
+        DataOutputStream out = null;
+        try {
+            temp = File.createTempFile(sidecar.getName(), ".tmp", sidecar.getAbsoluteFile().getParentFile());
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(length);
+            out.writeLong(modified);
+            out.writeLong(checksum);
+            writeLines(out, header);
+            writeLines(out, footer);
+            out.writeInt(props.size());
+            for (Map.Entry<String, String> entry : props.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+                writeString(out, inlineCom.get(entry.getKey()));
+                List<String> keyComments = comments.get(entry.getKey());
+                if (keyComments == null) {
+                    out.writeInt(0);
+                }
+                else {
+                    writeLines(out, keyComments);
+                }
+            }
+            out.close();
+            out = null;
+            if (!temp.renameTo(sidecar)) {
+                // Some platforms (ie: Windows) will not rename over an existing file
+                if (!sidecar.delete() || !temp.renameTo(sidecar)) {
+                    throw new IOException("Unable to replace ".concat(sidecar.getPath()));
+                }
+            }
+            temp = null;
+        }
+        catch (IOException ioe) {
+            UtilsLogger.warning(String.format("Failed to write snapshot: '%s' (%s)", sidecar.getPath(), ioe.getMessage()));
+        }
+        finally {
+            if (out != null) {
+                try {
+                    out.close();
+                }
+                catch (IOException e) {
+                    //do nothing
+                }
+            }
+            if (temp != null && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    private static void readLines(DataInputStream in, List<String> lines) throws IOException {
+        for (int count = in.readInt(); count > 0; count--) {
+            lines.add(readString(in));
+        }
+    }
+
+    private static void writeLines(DataOutputStream out, List<String> lines) throws IOException {
+        out.writeInt(lines.size());
+        for (String line : lines) {
+            writeString(out, line);
+        }
+    }
+
+    /** Reads a length prefixed UTF-8 String, a length of -1 is {@code null} */
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            if (length == -1) {
+                return null;
+            }
+            throw new EOFException("Negative length");
+        }
+        if (length > in.available()) {
+            throw new EOFException("Length past the end of the file"); // Corrupt, do not allocate it
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        if (str == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = str.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public final void header(String line) {
+        header.add(line);
+    }
+
+    @Override
+    public final void footer(String line) {
+        footer.add(line);
+    }
+
+    @Override
+    public final void comment(String line) {
+        inComments.add(line);
+    }
+
+    @Override
+    public final void property(String key, String value, String inlineComment) {
+        if (inlineComment != null) {
+            inlineCom.put(key, inlineComment);
+        }
+        props.put(key, value);
+        if (!inComments.isEmpty()) {
+            comments.put(key, new LinkedList<String>(inComments));
+            inComments.clear();
+        }
+    }
+
+    @Override
+    public final void invalid() {
+        //Incomplete property, drop reference
+        inComments.clear();
+    }
+}
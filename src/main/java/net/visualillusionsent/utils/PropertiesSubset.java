@@ -0,0 +1,344 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static net.visualillusionsent.utils.Verify.notNull;
+
+/**
+ * Properties Subset
+ * <p/>
+ * A view of the properties of a Properties File whose keys start with a prefix, such as all {@code db.pool.} keys.<br>
+ * Nothing is copied; the view reads through to the file and always reflects its current contents.
+ * Keys are found with a binary search over the sorted key index of the file, so listing them takes
+ * O(log n) plus the number of keys under the prefix. The getters take names relative to the prefix,
+ * {@code subset("db.pool.").getInt("size")} reads {@code db.pool.size}.
+ * <p/>
+ * Subsets are created with {@link AbstractPropertiesFile#subset(String)}.
+ *
+ * @author Jason (darkdiplomat)
+ * @version 1.0
+ * @since 1.4.3
+ */
+public final class PropertiesSubset {
+
+    /* 1.0 @ VIUtils 1.4.3 */
+    private static final float classVersion = 1.0F;
+    private final AbstractPropertiesFile file;
+    private final String prefix;
+
+    PropertiesSubset(AbstractPropertiesFile file, String prefix) {
+        this.file = file;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Gets the key prefix of this subset
+     *
+     * @return the prefix
+     */
+    public final String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Gets the full keys under the prefix in sorted order
+     *
+     * @return an unmodifiable list of the keys, as of this call
+     */
+    public final List<String> getKeys() {
+        return new Range(file.sortedKeys(), 0);
+    }
+
+    /**
+     * Gets the names under the prefix in sorted order, the keys without the prefix
+     *
+     * @return an unmodifiable list of the names, as of this call
+     */
+    public final List<String> getNames() {
+        return new Range(file.sortedKeys(), prefix.length());
+    }
+
+    /**
+     * Gets the number of keys under the prefix
+     *
+     * @return the key count
+     */
+    public final int size() {
+        return getKeys().size();
+    }
+
+    /**
+     * Gets a subset of this subset
+     *
+     * @param prefix
+     *         the prefix to add to the prefix of this subset
+     *
+     * @return the nested subset
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code prefix} is null
+     */
+    public final PropertiesSubset subset(String prefix) {
+        notNull(prefix, "String prefix");
+        return new PropertiesSubset(file, this.prefix.concat(prefix));
+    }
+
+    /**
+     * Gets the full key of a name
+     *
+     * @param name
+     *         the name relative to the prefix
+     *
+     * @return the key
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code name} is null
+     */
+    public final String keyOf(String name) {
+        notNull(name, "String name");
+        return prefix.concat(name);
+    }
+
+    /**
+     * Checks whether a name exists under the prefix
+     *
+     * @param name
+     *         the name relative to the prefix
+     *
+     * @return {@code true} if it exists; {@code false} otherwise
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code name} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if the resulting key is empty
+     */
+    public final boolean containsKey(String name) {
+        return file.containsKey(keyOf(name));
+    }
+
+    /**
+     * Gets a {@link String} value, see {@link AbstractPropertiesFile#getString(String)}
+     *
+     * @param name
+     *         the name relative to the prefix
+     *
+     * @return the value
+     *
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the key does not exist
+     */
+    public final String getString(String name) {
+        return file.getString(keyOf(name));
+    }
+
+    /**
+     * Gets a {@link String} value, see {@link AbstractPropertiesFile#getString(String, String)}
+     *
+     * @param name
+     *         the name relative to the prefix
+     * @param def
+     *         the default value
+     *
+     * @return the value or the default
+     */
+    public final String getString(String name, String def) {
+        return file.getString(keyOf(name), def);
+    }
+
+    /**
+     * Gets an {@code int} value, see {@link AbstractPropertiesFile#getInt(String)}
+     *
+     * @param name
+     *         the name relative to the prefix
+     *
+     * @return the value
+     *
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the key does not exist
+     * @throws java.lang.NumberFormatException
+     *         if the value is not a number or out of range
+     */
+    public final int getInt(String name) {
+        return file.getInt(keyOf(name));
+    }
+
+    /**
+     * Gets an {@code int} value, see {@link AbstractPropertiesFile#getInt(String, int)}
+     *
+     * @param name
+     *         the name relative to the prefix
+     * @param def
+     *         the default value
+     *
+     * @return the value or the default
+     */
+    public final int getInt(String name, int def) {
+        return file.getInt(keyOf(name), def);
+    }
+
+    /**
+     * Gets a {@code long} value, see {@link AbstractPropertiesFile#getLong(String)}
+     *
+     * @param name
+     *         the name relative to the prefix
+     *
+     * @return the value
+     *
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the key does not exist
+     * @throws java.lang.NumberFormatException
+     *         if the value is not a number or out of range
+     */
+    public final long getLong(String name) {
+        return file.getLong(keyOf(name));
+    }
+
+    /**
+     * Gets a {@code long} value, see {@link AbstractPropertiesFile#getLong(String, long)}
+     *
+     * @param name
+     *         the name relative to the prefix
+     * @param def
+     *         the default value
+     *
+     * @return the value or the default
+     */
+    public final long getLong(String name, long def) {
+        return file.getLong(keyOf(name), def);
+    }
+
+    /**
+     * Gets a {@code double} value, see {@link AbstractPropertiesFile#getDouble(String)}
+     *
+     * @param name
+     *         the name relative to the prefix
+     *
+     * @return the value
+     *
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the key does not exist
+     * @throws java.lang.NumberFormatException
+     *         if the value is not a number
+     */
+    public final double getDouble(String name) {
+        return file.getDouble(keyOf(name));
+    }
+
+    /**
+     * Gets a {@code double} value, see {@link AbstractPropertiesFile#getDouble(String, double)}
+     *
+     * @param name
+     *         the name relative to the prefix
+     * @param def
+     *         the default value
+     *
+     * @return the value or the default
+     */
+    public final double getDouble(String name, double def) {
+        return file.getDouble(keyOf(name), def);
+    }
+
+    /**
+     * Gets a {@code boolean} value, see {@link AbstractPropertiesFile#getBoolean(String)}
+     *
+     * @param name
+     *         the name relative to the prefix
+     *
+     * @return the value
+     *
+     * @throws net.visualillusionsent.utils.UnknownPropertyException
+     *         if the key does not exist
+     */
+    public final boolean getBoolean(String name) {
+        return file.getBoolean(keyOf(name));
+    }
+
+    /**
+     * Gets a {@code boolean} value, see {@link AbstractPropertiesFile#getBoolean(String, boolean)}
+     *
+     * @param name
+     *         the name relative to the prefix
+     * @param def
+     *         the default value
+     *
+     * @return the value or the default
+     */
+    public final boolean getBoolean(String name, boolean def) {
+        return file.getBoolean(keyOf(name), def);
+    }
+
+    /** The keys under the prefix within one sorted key array, found by binary search */
+    private final class Range extends AbstractList<String> implements RandomAccess {
+        private final String[] keys;
+        private final int from, to, strip;
+
+        private Range(String[] keys, int strip) {
+            this.keys = keys;
+            this.strip = strip;
+            int low = 0, high = keys.length;
+            while (low < high) { // First key not below the prefix
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            this.from = low;
+            high = keys.length;
+            while (low < high) { // First key after it that does not start with the prefix, they are all together
+                int mid = (low + high) >>> 1;
+                if (keys[mid].startsWith(prefix)) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            this.to = low;
+        }
+
+        @Override
+        public final String get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+            String key = keys[from + index];
+            return strip == 0 ? key : key.substring(strip);
+        }
+
+        @Override
+        public final int size() {
+            return to - from;
+        }
+    }
+
+    /**
+     * Gets this class's version number
+     *
+     * @return the class version
+     */
+    public static float getClassVersion() {
+        return classVersion;
+    }
+}
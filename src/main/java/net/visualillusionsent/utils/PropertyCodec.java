@@ -0,0 +1,59 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+/**
+ * Property Codec
+ * <p/>
+ * Converts between a property value and an object of some type, for use with
+ * {@link AbstractPropertiesFile#get(String, PropertyCodec)} and {@link AbstractPropertiesFile#set(String, Object, PropertyCodec, String...)}.<br>
+ * Decoded objects are cached by the Properties File until the value changes, so they should be immutable.
+ * Common codecs and a registry by type are found in {@link PropertyCodecs}.
+ *
+ * @param <T>
+ *         the type of the decoded objects
+ *
+ * @author Jason (darkdiplomat)
+ * @version 1.0
+ * @since 1.4.3
+ */
+public interface PropertyCodec<T> {
+
+    /**
+     * Decodes a property value
+     *
+     * @param value
+     *         the property value
+     *
+     * @return the decoded object
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         if the value can not be decoded
+     */
+    T decode(String value);
+
+    /**
+     * Encodes an object as a property value
+     *
+     * @param value
+     *         the object to encode
+     *
+     * @return the property value
+     */
+    String encode(T value);
+}
@@ -0,0 +1,201 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static net.visualillusionsent.utils.Verify.notNull;
+
+/**
+ * Provides common {@link PropertyCodec}s and a registry of codecs by type
+ *
+ * @author Jason (darkdiplomat)
+ * @version 1.0
+ * @since 1.4.3
+ */
+public final class PropertyCodecs {
+
+    /* 1.0 @ VIUtils 1.4.3 */
+    private static final float classVersion = 1.0F;
+    private static final ConcurrentHashMap<Class<?>, PropertyCodec<?>> registry = new ConcurrentHashMap<Class<?>, PropertyCodec<?>>();
+
+    /** {@link UUID}s in their standard form */
+    public static final PropertyCodec<UUID> UUID = new PropertyCodec<java.util.UUID>() {
+        @Override
+        public java.util.UUID decode(String value) {
+            return java.util.UUID.fromString(value);
+        }
+
+        @Override
+        public String encode(java.util.UUID value) {
+            return value.toString();
+        }
+    };
+
+    /** {@link Locale}s as language, country and variant separated by underscores, such as en_US */
+    public static final PropertyCodec<Locale> LOCALE = new PropertyCodec<Locale>() {
+        @Override
+        public Locale decode(String value) {
+            String[] parts = value.split("_", 3);
+            if (parts[0].length() == 0) {
+                throw new IllegalArgumentException("Not a Locale: ".concat(value));
+            }
+            return parts.length == 1 ? new Locale(parts[0]) : parts.length == 2 ? new Locale(parts[0], parts[1]) : new Locale(parts[0], parts[1], parts[2]);
+        }
+
+        @Override
+        public String encode(Locale value) {
+            return value.toString();
+        }
+    };
+
+    /**
+     * Durations in milliseconds, written as a number with one of the units ms, s, m, h or d such as 30s or 5m<br>
+     * A number without a unit is in milliseconds. Encoding uses the largest unit the duration is a whole multiple of
+     */
+    public static final PropertyCodec<Long> DURATION = new PropertyCodec<Long>() {
+        private final String[] units = new String[]{ "d", "h", "m", "s", "ms" };
+        private final long[] millis = new long[]{ TimeUnit.DAYS.toMillis(1), TimeUnit.HOURS.toMillis(1), TimeUnit.MINUTES.toMillis(1), 1000, 1 };
+
+        @Override
+        public Long decode(String value) {
+            String trimmed = value.trim();
+            for (int index = units.length - 1; index >= 0; index--) { // ms before m and s
+                if (trimmed.endsWith(units[index])) {
+                    String number = trimmed.substring(0, trimmed.length() - units[index].length()).trim();
+                    if (number.length() > 0 && Character.isDigit(number.charAt(number.length() - 1))) {
+                        return Long.parseLong(number) * millis[index];
+                    }
+                }
+            }
+            return Long.parseLong(trimmed);
+        }
+
+        @Override
+        public String encode(Long value) {
+            for (int index = 0; index < units.length; index++) {
+                if (value != 0 && value % millis[index] == 0) {
+                    return String.valueOf(value / millis[index]).concat(units[index]);
+                }
+            }
+            return String.valueOf(value).concat("ms");
+        }
+    };
+
+    static {
+        register(java.util.UUID.class, UUID);
+        register(Locale.class, LOCALE);
+    }
+
+    /** This class should never be constructed */
+    private PropertyCodecs() {
+    }
+
+    /**
+     * Gets a codec for the constants of an enum, by name
+     *
+     * @param type
+     *         the enum class
+     * @param <E>
+     *         the enum type
+     *
+     * @return the codec
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code type} is null
+     */
+    public static <E extends Enum<E>> PropertyCodec<E> forEnum(final Class<E> type) {
+        notNull(type, "Class type");
+        return new PropertyCodec<E>() {
+            @Override
+            public E decode(String value) {
+                return Enum.valueOf(type, value.trim());
+            }
+
+            @Override
+            public String encode(E value) {
+                return value.name();
+            }
+        };
+    }
+
+    /**
+     * Registers the codec to use for a type, replacing any codec registered before
+     *
+     * @param type
+     *         the type
+     * @param codec
+     *         the codec
+     * @param <T>
+     *         the type
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code type} or {@code codec} is null
+     */
+    public static <T> void register(Class<T> type, PropertyCodec<T> codec) {
+        notNull(type, "Class type");
+        notNull(codec, "PropertyCodec codec");
+        registry.put(type, codec);
+    }
+
+    /**
+     * Gets the registered codec of a type, enums without a registered codec get one by name
+     *
+     * @param type
+     *         the type
+     * @param <T>
+     *         the type
+     *
+     * @return the codec
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code type} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if no codec is registered for the type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PropertyCodec<T> forType(Class<T> type) {
+        notNull(type, "Class type");
+        PropertyCodec<T> codec = (PropertyCodec<T>) registry.get(type);
+        if (codec == null) {
+            if (!type.isEnum()) {
+                throw new IllegalArgumentException("No PropertyCodec registered for ".concat(type.getName()));
+            }
+            codec = (PropertyCodec<T>) enumCodec(type);
+            registry.putIfAbsent(type, codec);
+        }
+        return codec;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static PropertyCodec<?> enumCodec(Class type) {
+        return forEnum(type);
+    }
+
+    /**
+     * Gets this class's version number
+     *
+     * @return the class version
+     */
+    public static float getClassVersion() {
+        return classVersion;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+/**
+ * Property Handle
+ * <p/>
+ * A key of a Properties File resolved once, for values that are read very often.<br>
+ * The handle holds the parsed value and is updated by the Properties File whenever the key is set, removed or reloaded,
+ * so reading it is a single field read without any validation, lookup or parsing.
+ * If the key is missing or its value can not be parsed, the handle holds its default value instead.
+ * <p/>
+ * Handles are created with the handle methods of {@link AbstractPropertiesFile}, such as
+ * {@link AbstractPropertiesFile#intHandle(String, int)}. The Properties File only holds them weakly; a handle is updated
+ * until it is released with {@link AbstractPropertiesFile#releaseHandle(PropertyHandle)} or no longer referenced.
+ *
+ * @author Jason (darkdiplomat)
+ * @version 1.0
+ * @since 1.4.3
+ */
+public abstract class PropertyHandle {
+
+    /* 1.0 @ VIUtils 1.4.3 */
+    private static final float classVersion = 1.0F;
+    protected final AbstractPropertiesFile file;
+    protected final String key;
+
+    PropertyHandle(AbstractPropertiesFile file, String key) {
+        this.file = file;
+        this.key = key;
+    }
+
+    /**
+     * Gets the key of the handle
+     *
+     * @return the key
+     */
+    public final String getKey() {
+        return key;
+    }
+
+    /** Reads the value from the Properties File again, called once the handle is registered and on every change */
+    abstract void refresh();
+
+    /** Handle for a {@code String} value */
+    public static final class StringProperty extends PropertyHandle {
+        private final String def;
+        private volatile String value;
+
+        StringProperty(AbstractPropertiesFile file, String key, String def) {
+            super(file, key);
+            this.def = def;
+        }
+
+        /**
+         * Gets the current value
+         *
+         * @return the value, or the default if the key is missing
+         */
+        public final String get() {
+            return value;
+        }
+
+        @Override
+        final synchronized void refresh() {
+            try {
+                value = file.containsKey(key) ? file.getString(key) : def;
+            }
+            catch (UnknownPropertyException upex) {
+                value = def; // Removed in the meantime
+            }
+        }
+    }
+
+    /** Handle for an {@code int} value */
+    public static final class IntProperty extends PropertyHandle {
+        private final int def;
+        private volatile int value;
+
+        IntProperty(AbstractPropertiesFile file, String key, int def) {
+            super(file, key);
+            this.def = def;
+        }
+
+        /**
+         * Gets the current value
+         *
+         * @return the value, or the default if the key is missing or not a number
+         */
+        public final int get() {
+            return value;
+        }
+
+        @Override
+        final synchronized void refresh() {
+            try {
+                value = file.containsKey(key) ? file.getInt(key) : def;
+            }
+            catch (NumberFormatException nfex) {
+                value = def;
+            }
+            catch (UnknownPropertyException upex) {
+                value = def; // Removed in the meantime
+            }
+        }
+    }
+
+    /** Handle for a {@code long} value */
+    public static final class LongProperty extends PropertyHandle {
+        private final long def;
+        private volatile long value;
+
+        LongProperty(AbstractPropertiesFile file, String key, long def) {
+            super(file, key);
+            this.def = def;
+        }
+
+        /**
+         * Gets the current value
+         *
+         * @return the value, or the default if the key is missing or not a number
+         */
+        public final long get() {
+            return value;
+        }
+
+        @Override
+        final synchronized void refresh() {
+            try {
+                value = file.containsKey(key) ? file.getLong(key) : def;
+            }
+            catch (NumberFormatException nfex) {
+                value = def;
+            }
+            catch (UnknownPropertyException upex) {
+                value = def; // Removed in the meantime
+            }
+        }
+    }
+
+    /** Handle for a {@code double} value */
+    public static final class DoubleProperty extends PropertyHandle {
+        private final double def;
+        private volatile double value;
+
+        DoubleProperty(AbstractPropertiesFile file, String key, double def) {
+            super(file, key);
+            this.def = def;
+        }
+
+        /**
+         * Gets the current value
+         *
+         * @return the value, or the default if the key is missing or not a number
+         */
+        public final double get() {
+            return value;
+        }
+
+        @Override
+        final synchronized void refresh() {
+            try {
+                value = file.containsKey(key) ? file.getDouble(key) : def;
+            }
+            catch (NumberFormatException nfex) {
+                value = def;
+            }
+            catch (UnknownPropertyException upex) {
+                value = def; // Removed in the meantime
+            }
+        }
+    }
+
+    /** Handle for a {@code boolean} value */
+    public static final class BooleanProperty extends PropertyHandle {
+        private final boolean def;
+        private volatile boolean value;
+
+        BooleanProperty(AbstractPropertiesFile file, String key, boolean def) {
+            super(file, key);
+            this.def = def;
+        }
+
+        /**
+         * Gets the current value
+         *
+         * @return the value, or the default if the key is missing
+         */
+        public final boolean get() {
+            return value;
+        }
+
+        @Override
+        final synchronized void refresh() {
+            try {
+                value = file.containsKey(key) ? file.getBoolean(key) : def;
+            }
+            catch (UnknownPropertyException upex) {
+                value = def; // Removed in the meantime
+            }
+        }
+    }
+
+    /**
+     * Gets this class's version number
+     *
+     * @return the class version
+     */
+    public static float getClassVersion() {
+        return classVersion;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A task whose timing is handled by the scheduler
+ * <p/>
+ * The scheduler runs the dispatch when the task is due, which runs the body on the given {@link Executor}.
+ * That is either the scheduler thread itself or a worker, so a blocking body never holds a scheduler thread.
+ * A fixed rate task is not dispatched again while its previous run is still going, that run is skipped instead.
+ * A task with a {@link Recurrence} is scheduled again after each run, with the delay the recurrence gives.
+ *
+ * @author Jason (darkdiplomat)
+ * @since 1.4.3
+ */
+final class ScheduledTask<V> extends TrackedTask<V> {
+
+    /** Runs bodies on the thread that dispatches them */
+    static final Executor DIRECT = new Executor() {
+        @Override
+        public final void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final Executor executor;
+    private final boolean periodic;
+    private final Recurrence recurrence; // null unless scheduled again after each run
+    private final AtomicBoolean dispatched = new AtomicBoolean();
+    private volatile ScheduledFuture<?> timer;
+
+    /** Runs on the scheduler when the task is due */
+    final Runnable dispatch = new Runnable() {
+        @Override
+        public final void run() {
+            // Only a fixed rate run can come due while the previous one runs; a recurrence is scheduled after its run
+            if (!isDone() && (!periodic || recurrence != null || dispatched.compareAndSet(false, true))) {
+                if (TaskManager.metrics() != null) {
+                    ScheduledFuture<?> current = timer;
+                    long now = System.nanoTime();
+                    due = current == null ? now : now + Math.min(0, current.getDelay(NANOSECONDS)); // Late by the overdue delay
+                }
+                executor.execute(ScheduledTask.this);
+            }
+        }
+    };
+
+    ScheduledTask(Runnable runnable, Executor executor, boolean periodic, TaskGroup group) {
+        super(runnable, null, group);
+        this.executor = executor;
+        this.periodic = periodic;
+        this.recurrence = null;
+    }
+
+    ScheduledTask(Runnable runnable, Executor executor, Recurrence recurrence, TaskGroup group) {
+        super(runnable, null, group);
+        this.executor = executor;
+        this.periodic = true;
+        this.recurrence = recurrence;
+    }
+
+    ScheduledTask(Callable<V> callable, Executor executor, TaskGroup group) {
+        super(callable, group);
+        this.executor = executor;
+        this.periodic = false;
+        this.recurrence = null;
+    }
+
+    /**
+     * Sets the future of the dispatch on the scheduler, cancelled once this task is done
+     *
+     * @param timer
+     *         the scheduled dispatch
+     */
+    final void setTimer(ScheduledFuture<?> timer) {
+        this.timer = timer;
+        if (isDone()) { // Finished before the timer was known
+            timer.cancel(false);
+        }
+    }
+
+    @Override
+    final void runTask() {
+        if (!periodic) {
+            super.runTask();
+            return;
+        }
+        boolean again;
+        try {
+            again = runAndReset();
+        }
+        finally {
+            dispatched.set(false); // Cleared before the next run is scheduled, so it can never find it still set
+        }
+        if (again && recurrence != null) {
+            try {
+                schedule(recurrence.nextDelay());
+            }
+            catch (RuntimeException rex) {
+                setException(rex); // The recurrence failed, such as a schedule that no longer matches
+            }
+        }
+    }
+
+    /**
+     * Schedules the next run of a task with a {@link Recurrence}
+     *
+     * @param delay
+     *         the delay in nanoseconds
+     */
+    final void schedule(long delay) {
+        try {
+            setTimer(TaskManager.getScheduler().schedule(dispatch, delay, NANOSECONDS));
+        }
+        catch (RejectedExecutionException reex) {
+            cancel(false); // The scheduler has been shut down
+        }
+    }
+
+    /** Gives the delay before each next run of a task scheduled again after every run */
+    abstract static class Recurrence {
+
+        /**
+         * Gets the delay before the next run, called once a run has finished
+         *
+         * @return the delay in nanoseconds
+         */
+        abstract long nextDelay();
+    }
+
+    @Override
+    protected final void done() {
+        ScheduledFuture<?> current = timer;
+        if (current != null) {
+            current.cancel(false);
+        }
+        super.done();
+    }
+
+    @Override
+    public final long getDelay(TimeUnit unit) {
+        ScheduledFuture<?> current = timer;
+        return current == null ? 0 : current.getDelay(unit);
+    }
+}
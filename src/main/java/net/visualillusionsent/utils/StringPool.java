@@ -0,0 +1,79 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Shared pool of the Strings of Properties Files loaded with {@link AbstractPropertiesFile.LoadOption#DEDUPLICATE}
+ * <p/>
+ * Equal Strings are replaced by the one copy in the pool, so files with the same keys, such as the language files of
+ * {@link LocaleHelper}, share them. The pool only holds its Strings weakly and forgets them once no file uses them.<br>
+ * Values are only pooled up to {@link #MAX_VALUE_LENGTH} characters; short values like "OK" repeat across files,
+ * long ones rarely do and would only cost a pool entry each.
+ *
+ * @author Jason (darkdiplomat)
+ * @since 1.4.3
+ */
+final class StringPool {
+
+    /** The longest value that is pooled */
+    static final int MAX_VALUE_LENGTH = 32;
+    /** Pooled Strings mapped to themselves, guarded by itself */
+    private static final WeakHashMap<String, WeakReference<String>> pool = new WeakHashMap<String, WeakReference<String>>();
+
+    /** This class should never be constructed */
+    private StringPool() {
+    }
+
+    /**
+     * Gets the pooled copy of a String, adding it to the pool if there is none
+     *
+     * @param str
+     *         the String to pool, may be {@code null}
+     *
+     * @return the pooled copy
+     */
+    static String pooled(String str) {
+        if (str == null) {
+            return null;
+        }
+        synchronized (pool) {
+            WeakReference<String> ref = pool.get(str);
+            String pooled = ref != null ? ref.get() : null;
+            if (pooled == null) {
+                pool.put(str, new WeakReference<String>(str));
+                pooled = str;
+            }
+            return pooled;
+        }
+    }
+
+    /**
+     * Gets the pooled copy of a value if it is short enough to be pooled
+     *
+     * @param value
+     *         the value to pool, may be {@code null}
+     *
+     * @return the pooled copy, or the value itself if it is too long
+     */
+    static String pooledValue(String value) {
+        return value == null || value.length() > MAX_VALUE_LENGTH ? value : pooled(value);
+    }
+}
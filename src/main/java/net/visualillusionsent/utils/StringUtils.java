@@ -537,7 +537,15 @@ public final class StringUtils {
         //notEmpty(str, "String str"); // Empty array is alright
         notEmpty(delimiter, "String delimiter");
 
-        return stringArrayToIntArray(str.split(delimiter));
+        if (!isLiteral(delimiter)) {
+            return stringArrayToIntArray(str.split(delimiter));
+        }
+        int[] toRet = new int[elements(str, delimiter)];
+        for (int index = 0, start = 0, end; index < toRet.length; index++, start = end + delimiter.length()) {
+            end = elementEnd(str, delimiter, start);
+            toRet[index] = (int) decode(str, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        return toRet;
     }
 
     /**
@@ -666,7 +674,15 @@ public final class StringUtils {
         //notEmpty(str, "String str"); // Empty array is alright
         notEmpty(delimiter, "String delimiter");
 
-        return stringArrayToLongArray(str.split(delimiter));
+        if (!isLiteral(delimiter)) {
+            return stringArrayToLongArray(str.split(delimiter));
+        }
+        long[] toRet = new long[elements(str, delimiter)];
+        for (int index = 0, start = 0, end; index < toRet.length; index++, start = end + delimiter.length()) {
+            end = elementEnd(str, delimiter, start);
+            toRet[index] = decode(str, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        return toRet;
     }
 
     /**
@@ -926,7 +942,22 @@ public final class StringUtils {
         //notEmpty(str, "String str"); // Empty array is alright
         notEmpty(delimiter, "String delimiter");
 
-        return stringArrayToDoubleArray(str.split(delimiter));
+        if (!isLiteral(delimiter)) {
+            return stringArrayToDoubleArray(str.split(delimiter));
+        }
+        double[] toRet = new double[elements(str, delimiter)];
+        for (int index = 0, start = 0, end; index < toRet.length; index++, start = end + delimiter.length()) {
+            end = elementEnd(str, delimiter, start);
+            String element = str.substring(start, end); // Exact rounding is left to Double
+            try {
+                toRet[index] = Double.parseDouble(element);
+            }
+            catch (NumberFormatException nfe) {
+                // Change Message
+                throw new NumberFormatException(Verify.parse("str.nan", element));
+            }
+        }
+        return toRet;
     }
 
     /**
@@ -1188,6 +1219,114 @@ public final class StringUtils {
         return arr;
     }
 
+    /**
+     * Checks whether a delimiter matches only itself when used as a regular expression
+     *
+     * @param delimiter
+     *         the delimiter to check
+     *
+     * @return {@code true} if it can be searched for as is; {@code false} if it needs {@link String#split(String)}
+     */
+    private static boolean isLiteral(String delimiter) {
+        for (int index = 0; index < delimiter.length(); index++) {
+            if (".$|()[{^?*+\\".indexOf(delimiter.charAt(index)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts the elements {@link String#split(String)} would return for a literal delimiter, trailing empty elements are dropped
+     *
+     * @param str
+     *         the string to be split
+     * @param delimiter
+     *         the literal delimiter
+     *
+     * @return the element count
+     */
+    private static int elements(String str, String delimiter) {
+        if (str.length() == 0) {
+            return 1; // No delimiter, the String itself
+        }
+        int elements = 0;
+        for (int count = 1, start = 0, end; ; count++, start = end + delimiter.length()) {
+            end = elementEnd(str, delimiter, start);
+            if (end > start) {
+                elements = count;
+            }
+            if (end == str.length()) {
+                return elements;
+            }
+        }
+    }
+
+    /** Gets the end of the element starting at {@code start} */
+    private static int elementEnd(String str, String delimiter, int start) {
+        int end = str.indexOf(delimiter, start);
+        return end < 0 ? str.length() : end;
+    }
+
+    /**
+     * Decodes a part of a {@link String} like {@link Long#decode(String)} does with the trimmed part, without copying it
+     *
+     * @param str
+     *         the string holding the number
+     * @param start
+     *         the start of the number
+     * @param end
+     *         the end of the number, exclusive
+     * @param min
+     *         the smallest value allowed
+     * @param max
+     *         the largest value allowed
+     *
+     * @return the decoded number
+     *
+     * @throws java.lang.NumberFormatException
+     *         if the part is not a number or out of range
+     */
+    private static long decode(String str, int start, int end, long min, long max) {
+        int index = start, last = end;
+        while (index < last && str.charAt(index) <= ' ') {
+            index++;
+        }
+        while (last > index && str.charAt(last - 1) <= ' ') {
+            last--;
+        }
+        boolean negative = false;
+        if (index < last && (str.charAt(index) == '-' || str.charAt(index) == '+')) {
+            negative = str.charAt(index++) == '-';
+        }
+        int radix = 10;
+        if (last - index > 1 && str.charAt(index) == '0' && (str.charAt(index + 1) == 'x' || str.charAt(index + 1) == 'X')) {
+            index += 2;
+            radix = 16;
+        }
+        else if (index < last && str.charAt(index) == '#') {
+            index++;
+            radix = 16;
+        }
+        else if (last - index > 1 && str.charAt(index) == '0') {
+            index++;
+            radix = 8;
+        }
+        // Accumulated negatively so the smallest value fits
+        long limit = negative ? min : -max, multLimit = limit / radix, result = 0;
+        if (index == last) {
+            throw new NumberFormatException(Verify.parse("str.nan", str.substring(start, end)));
+        }
+        for (; index < last; index++) {
+            int digit = Character.digit(str.charAt(index), radix);
+            if (digit < 0 || result < multLimit || result * radix < limit + digit) {
+                throw new NumberFormatException(Verify.parse("str.nan", str.substring(start, end)));
+            }
+            result = result * radix - digit;
+        }
+        return negative ? result : -result;
+    }
+
     /**
      * Gets this class's version number
      *
@@ -0,0 +1,260 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A batch of items processed in parallel by the {@link TaskManager}
+ * <p/>
+ * Every thread of the batch claims chunks of items from a shared cursor until none are left, so threads that finish
+ * early simply take more and a slow item never holds up the rest. Chunks start large and shrink as the batch drains
+ * (guided scheduling): claiming costs one compare and set per chunk, yet the last chunks are small enough to even
+ * out the finish. The thread that finishes the last chunk combines the results and completes the batch.<br>
+ * Cancelling the batch skips the chunks not claimed yet; if it may interrupt, the threads running a chunk are
+ * interrupted as well, and their interrupt is cleared again once the chunk is left.<br>
+ * The batch is only a {@link Future} of its result; it is run by its own threads and cannot be run by anyone else.
+ *
+ * @author Jason (darkdiplomat)
+ * @since 1.4.3
+ */
+final class TaskBatch<T, R> implements Future<R> {
+
+    private static final Comparator<Chunk<?>> ORDER = new Comparator<Chunk<?>>() {
+        @Override
+        public final int compare(Chunk<?> one, Chunk<?> two) {
+            return one.start < two.start ? -1 : one.start > two.start ? 1 : 0;
+        }
+    };
+
+    private final Object[] items; // null for a range
+    private final int first, count;
+    private final BatchTask<? super T, R> task;
+    private final int parallelism;
+    private final AtomicInteger cursor = new AtomicInteger(); // offset of the next unclaimed item
+    private final AtomicInteger remaining; // items not finished or skipped
+    private final List<Chunk<R>> chunks = new ArrayList<Chunk<R>>(); // guarded by itself
+    private volatile Throwable failure;
+    private final Set<Thread> running = new HashSet<Thread>(); // threads inside a chunk, guarded by itself
+    private boolean interrupted; // set once by cancel, guarded by running
+    /** Combines the results, run once by the thread finishing the last chunk */
+    private final FutureTask<R> result = new FutureTask<R>(new Callable<R>() {
+        @Override
+        public final R call() throws Exception {
+            return fold();
+        }
+    });
+
+    /** Processes the batch on a thread of the pool */
+    final Runnable worker = new Runnable() {
+        @Override
+        public final void run() {
+            work();
+        }
+    };
+
+    private TaskBatch(Object[] items, int first, int count, BatchTask<? super T, R> task, int parallelism) {
+        this.items = items;
+        this.first = first;
+        this.count = count;
+        this.task = task;
+        this.parallelism = parallelism;
+        this.remaining = new AtomicInteger(count);
+    }
+
+    static <T, R> TaskBatch<T, R> of(Object[] items, BatchTask<? super T, R> task, int parallelism) {
+        return new TaskBatch<T, R>(items, 0, items.length, task, parallelism);
+    }
+
+    static <R> TaskBatch<Integer, R> range(int from, int to, BatchTask<? super Integer, R> task, int parallelism) {
+        return new TaskBatch<Integer, R>(null, from, to - from, task, parallelism);
+    }
+
+    /**
+     * Starts the threads of the batch
+     *
+     * @param executor
+     *         the pool to run them on
+     * @param caller
+     *         whether the calling thread processes items as well and waits for the batch
+     */
+    final void start(Executor executor, boolean caller) {
+        if (count == 0) {
+            result.run();
+            return;
+        }
+        int helpers = Math.min(parallelism, count) - (caller ? 1 : 0);
+        try {
+            for (int index = 0; index < helpers; index++) {
+                executor.execute(worker);
+            }
+        }
+        catch (RejectedExecutionException reex) {
+            if (!caller) {
+                cancel(false);
+                throw reex;
+            }
+            // The caller still processes every item
+        }
+        if (caller) {
+            work();
+        }
+    }
+
+    /** Claims and processes chunks until none are left */
+    @SuppressWarnings("unchecked")
+    private void work() {
+        while (failure == null && !isCancelled()) {
+            int start = cursor.get();
+            if (start >= count) {
+                return;
+            }
+            int size = Math.max(1, (count - start) / (parallelism * 2));
+            if (!cursor.compareAndSet(start, start + size)) {
+                continue; // Another thread claimed it
+            }
+            if (!enter()) {
+                finish(size);
+                break; // Cancelled meanwhile
+            }
+            R result = null;
+            try {
+                for (int offset = start; offset < start + size; offset++) {
+                    T item = items == null ? (T) Integer.valueOf(first + offset) : (T) items[offset];
+                    R value = task.process(item);
+                    result = offset == start ? value : task.combine(result, value);
+                }
+            }
+            catch (Throwable thrown) {
+                failure = thrown;
+            }
+            exit();
+            synchronized (chunks) {
+                chunks.add(new Chunk<R>(start, result));
+            }
+            finish(size);
+        }
+        finish(count - cursor.getAndSet(count)); // Failed or cancelled, skip the unclaimed items
+    }
+
+    /** Marks the current thread as running a chunk, unless the batch was cancelled with interrupts */
+    private boolean enter() {
+        synchronized (running) {
+            return !interrupted && running.add(Thread.currentThread());
+        }
+    }
+
+    /** Unmarks the current thread, clearing the interrupt cancel sent to the chunk so the thread does not keep it */
+    private void exit() {
+        boolean clear;
+        synchronized (running) {
+            running.remove(Thread.currentThread());
+            clear = interrupted;
+        }
+        if (clear) {
+            Thread.interrupted();
+        }
+    }
+
+    private void finish(int items) {
+        if (items > 0 && remaining.addAndGet(-items) == 0) {
+            result.run(); // Combines the results, or fails with the failure
+        }
+    }
+
+    @Override
+    public final boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = result.cancel(false); // The result is combined by a worker, never interrupt that
+        if (cancelled && mayInterruptIfRunning) {
+            synchronized (running) {
+                interrupted = true;
+                for (Thread thread : running) {
+                    thread.interrupt();
+                }
+            }
+        }
+        return cancelled;
+    }
+
+    @Override
+    public final boolean isCancelled() {
+        return result.isCancelled();
+    }
+
+    @Override
+    public final boolean isDone() {
+        return result.isDone();
+    }
+
+    @Override
+    public final R get() throws InterruptedException, ExecutionException {
+        return result.get();
+    }
+
+    @Override
+    public final R get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return result.get(timeout, unit);
+    }
+
+    /** Folds the results of the chunks in order */
+    private R fold() throws Exception {
+        Throwable thrown = failure;
+        if (thrown instanceof Error) {
+            throw (Error) thrown;
+        }
+        else if (thrown != null) {
+            throw (Exception) thrown;
+        }
+        List<Chunk<R>> ordered;
+        synchronized (chunks) {
+            ordered = new ArrayList<Chunk<R>>(chunks);
+        }
+        Collections.sort(ordered, ORDER);
+        R result = null;
+        for (int index = 0; index < ordered.size(); index++) {
+            R value = ordered.get(index).result;
+            result = index == 0 ? value : task.combine(result, value);
+        }
+        return result;
+    }
+
+    /** The result of a chunk of items */
+    private static final class Chunk<R> {
+        final int start;
+        final R result;
+
+        Chunk(int start, R result) {
+            this.start = start;
+            this.result = result;
+        }
+    }
+}
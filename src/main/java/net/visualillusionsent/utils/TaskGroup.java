@@ -0,0 +1,427 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.visualillusionsent.utils.Verify.notNegative;
+import static net.visualillusionsent.utils.Verify.notNegativeOrZero;
+import static net.visualillusionsent.utils.Verify.notNull;
+
+/**
+ * Task Group
+ * <p/>
+ * A named set of tasks of the {@link TaskManager}, such as all tasks of one plugin.<br>
+ * All tasks of a group are cancelled at once with {@link #cancelAll()}, which takes time in the number of tasks
+ * of the group and purges the scheduler only once. A group may also limit how many of its tasks run at once;
+ * tasks that are due while the group is at its limit wait for a running one to finish, without holding a thread.
+ * Each waiting task is then handed to the worker threads or the scheduler on its own, so a backlog never keeps one thread.
+ * <p/>
+ * Groups are created with {@link TaskManager#getTaskGroup(String)}.
+ *
+ * @author Jason (darkdiplomat)
+ * @version 1.0
+ * @since 1.4.3
+ */
+public final class TaskGroup {
+
+    /* 1.0 @ VIUtils 1.4.3 */
+    private static final float classVersion = 1.0F;
+    private final String name;
+    private volatile int maxConcurrency; // 0 for no limit
+    private final AtomicInteger running = new AtomicInteger(); // tasks holding a slot of the limit
+    private final ConcurrentLinkedQueue<Runnable> waiting = new ConcurrentLinkedQueue<Runnable>();
+    // Intrusive list of the tasks, guarded by this
+    private TrackedTask<?> head;
+    private int size;
+
+    /**
+     * Runs one waiting task while holding a slot, then hands the slot to the next waiting task as a new execution,
+     * so a backlog never keeps the thread that released the slot
+     */
+    private final Runnable drain = new Runnable() {
+        @Override
+        public final void run() {
+            try {
+                Runnable next = waiting.poll();
+                if (next != null) {
+                    next.run();
+                }
+            }
+            finally {
+                running.decrementAndGet();
+                if (!waiting.isEmpty() && acquire()) { // Otherwise the task adding to waiting takes a slot itself
+                    handOff();
+                }
+            }
+        }
+    };
+
+    TaskGroup(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of the group
+     *
+     * @return the name
+     */
+    public final String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the most tasks of the group that run at once
+     *
+     * @return the limit, 0 if there is none
+     */
+    public final int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Sets the most tasks of the group that run at once
+     *
+     * @param maxConcurrency
+     *         the limit, 0 for none
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code maxConcurrency} is negative
+     */
+    public final void setMaxConcurrency(int maxConcurrency) {
+        notNegative(maxConcurrency, "int maxConcurrency");
+        this.maxConcurrency = maxConcurrency;
+        for (int start = waiting.size(); start > 0 && acquire(); start--) { // Raised, start waiting tasks
+            handOff();
+        }
+    }
+
+    /**
+     * Gets the number of scheduled tasks of the group that have not completed yet
+     *
+     * @return the number of tasks
+     */
+    public final synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Executes a {@link Runnable} task of the group as soon as possible
+     *
+     * @param task
+     *         the {@link Runnable} task to execute
+     *
+     * @return a Future representing pending completion of the task
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code task} is null
+     * @throws RejectedExecutionException
+     *         if the task cannot be accepted for execution because the executor has been shut down
+     */
+    public final Future<?> submitTask(Runnable task) throws RejectedExecutionException {
+        notNull(task, "Runnable task");
+        return TaskManager.submit(new ScheduledTask<Object>(task, TaskManager.executor(this, false), false, this));
+    }
+
+    /**
+     * Executes a {@link Callable} task of the group as soon as possible
+     *
+     * @param task
+     *         the {@link Callable} task to execute
+     *
+     * @return a Future representing pending completion of the task
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code task} is null
+     * @throws RejectedExecutionException
+     *         if the task cannot be accepted for execution because the executor has been shut down
+     */
+    public final <V> Future<V> submitTask(Callable<V> task) throws RejectedExecutionException {
+        notNull(task, "Callable task");
+        return TaskManager.submit(new ScheduledTask<V>(task, TaskManager.executor(this, false), this));
+    }
+
+    /**
+     * Executes a {@link Runnable} task of the group after a delay, see {@link TaskManager#scheduleDelayedTask(Runnable, long, TimeUnit)}
+     *
+     * @param task
+     *         the {@link Runnable} task to execute
+     * @param delay
+     *         the delay before execution
+     * @param timeUnit
+     *         the {@link TimeUnit} to use
+     *
+     * @return a ScheduledFuture representing pending completion of the task
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code task} or {@code timeUnit} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if the {@code delay} is equal to or less than zero
+     * @throws RejectedExecutionException
+     *         if the task cannot be accepted for execution because the executor has been shut down
+     */
+    public final ScheduledFuture<?> scheduleDelayedTask(Runnable task, long delay, TimeUnit timeUnit) throws RejectedExecutionException {
+        notNull(task, "Runnable task");
+        notNegativeOrZero(delay, "Delay");
+        notNull(timeUnit, "TimeUnit timeUnit");
+        return TaskManager.scheduleDelayed(task, delay, timeUnit, this);
+    }
+
+    /**
+     * Executes a {@link Callable} task of the group after a delay, see {@link TaskManager#scheduleDelayedTask(Callable, long, TimeUnit)}
+     *
+     * @param task
+     *         the {@link Callable} task to execute
+     * @param delay
+     *         the delay before execution
+     * @param timeUnit
+     *         the {@link TimeUnit} to use
+     *
+     * @return a ScheduledFuture representing pending completion of the task
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code task} or {@code timeUnit} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if the {@code delay} is equal to or less than zero
+     * @throws RejectedExecutionException
+     *         if the task cannot be accepted for execution because the executor has been shut down
+     */
+    public final <V> ScheduledFuture<V> scheduleDelayedTask(Callable<V> task, long delay, TimeUnit timeUnit) throws RejectedExecutionException {
+        notNull(task, "Callable task");
+        notNegativeOrZero(delay, "Delay");
+        notNull(timeUnit, "TimeUnit timeUnit");
+        return TaskManager.scheduleDelayed(task, delay, timeUnit, this);
+    }
+
+    /**
+     * Executes a {@link Runnable} task of the group continually, see {@link TaskManager#scheduleContinuedTask(Runnable, long, long, TimeUnit)}
+     *
+     * @param task
+     *         the {@link Runnable} task to execute
+     * @param initialDelay
+     *         the delay before initial execution
+     * @param delay
+     *         the delay between additional executions
+     * @param timeUnit
+     *         the {@link TimeUnit} to use
+     *
+     * @return a ScheduledFuture representing pending completion of the task
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code task} or {@code timeUnit} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if the {@code delay} is equal to or less than zero
+     * @throws RejectedExecutionException
+     *         if the task cannot be accepted for execution because the executor has been shut down
+     */
+    public final ScheduledFuture<?> scheduleContinuedTask(Runnable task, long initialDelay, long delay, TimeUnit timeUnit) throws RejectedExecutionException {
+        notNull(task, "Runnable task");
+        notNegativeOrZero(initialDelay, "long initialDelay");
+        notNull(timeUnit, "TimeUnit timeUnit");
+        return TaskManager.scheduleContinued(task, initialDelay, delay, timeUnit, this);
+    }
+
+    /**
+     * Executes a {@link Runnable} task of the group continually with a fixed delay and jitter,
+     * see {@link TaskManager#scheduleFixedDelayTask(Runnable, long, long, long, TimeUnit)}
+     *
+     * @param task
+     *         the {@link Runnable} task to execute
+     * @param initialDelay
+     *         the delay before initial execution
+     * @param delay
+     *         the delay after each execution
+     * @param jitter
+     *         the most added at random to each delay, 0 for none
+     * @param timeUnit
+     *         the {@link TimeUnit} to use
+     *
+     * @return a ScheduledFuture representing pending completion of the task
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code task} or {@code timeUnit} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if the {@code initialDelay} or {@code delay} is equal to or less than zero, or {@code jitter} is negative
+     * @throws RejectedExecutionException
+     *         if the task cannot be accepted for execution because the executor has been shut down
+     */
+    public final ScheduledFuture<?> scheduleFixedDelayTask(Runnable task, long initialDelay, long delay, long jitter, TimeUnit timeUnit) throws RejectedExecutionException {
+        notNull(task, "Runnable task");
+        notNegativeOrZero(initialDelay, "long initialDelay");
+        notNegativeOrZero(delay, "long delay");
+        notNegative(jitter, "long jitter");
+        notNull(timeUnit, "TimeUnit timeUnit");
+        return TaskManager.scheduleFixedDelay(task, initialDelay, delay, jitter, timeUnit, this);
+    }
+
+    /**
+     * Executes a {@link Runnable} task of the group at the times of a {@link CronSchedule}
+     *
+     * @param task
+     *         the {@link Runnable} task to execute
+     * @param schedule
+     *         the schedule
+     *
+     * @return a ScheduledFuture representing pending completion of the task
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code task} or {@code schedule} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if the {@code schedule} never matches
+     * @throws RejectedExecutionException
+     *         if the task cannot be accepted for execution because the executor has been shut down
+     */
+    public final ScheduledFuture<?> scheduleCronTask(Runnable task, CronSchedule schedule) throws RejectedExecutionException {
+        notNull(task, "Runnable task");
+        notNull(schedule, "CronSchedule schedule");
+        return TaskManager.scheduleCron(task, schedule, this);
+    }
+
+    /**
+     * Cancels all tasks of the group, running tasks are interrupted
+     *
+     * @return the number of tasks cancelled
+     */
+    public final int cancelAll() {
+        TrackedTask<?> task;
+        synchronized (this) { // Detach the list, so no lock is held while cancelling
+            task = head;
+            for (TrackedTask<?> each = head; each != null; each = each.nextInGroup) {
+                each.grouped = false;
+            }
+            head = null;
+            size = 0;
+        }
+        int cancelled = 0;
+        while (task != null) {
+            TrackedTask<?> next = task.nextInGroup;
+            task.prevInGroup = task.nextInGroup = null;
+            if (task.cancel(true)) {
+                cancelled++;
+            }
+            task = next;
+        }
+        if (cancelled > 0) {
+            TaskManager.purge(); // Once for the whole group
+        }
+        return cancelled;
+    }
+
+    final synchronized void add(TrackedTask<?> task) {
+        if (task.grouped) {
+            return;
+        }
+        task.prevInGroup = null;
+        task.nextInGroup = head;
+        if (head != null) {
+            head.prevInGroup = task;
+        }
+        head = task;
+        task.grouped = true;
+        size++;
+    }
+
+    final synchronized void remove(TrackedTask<?> task) {
+        if (!task.grouped) {
+            return; // Never added or detached by cancelAll
+        }
+        if (task.prevInGroup != null) {
+            task.prevInGroup.nextInGroup = task.nextInGroup;
+        }
+        else {
+            head = task.nextInGroup;
+        }
+        if (task.nextInGroup != null) {
+            task.nextInGroup.prevInGroup = task.prevInGroup;
+        }
+        task.prevInGroup = task.nextInGroup = null;
+        task.grouped = false;
+        size--;
+    }
+
+    /**
+     * Gets an executor which keeps to the limit of the group
+     *
+     * @param base
+     *         the executor to run tasks on
+     *
+     * @return the limited executor
+     */
+    final Executor gate(final Executor base) {
+        return new Executor() {
+            @Override
+            public final void execute(Runnable command) {
+                if (maxConcurrency == 0) {
+                    base.execute(command);
+                    return;
+                }
+                waiting.add(command);
+                if (acquire()) {
+                    try {
+                        base.execute(drain);
+                    }
+                    catch (RejectedExecutionException reex) {
+                        running.decrementAndGet();
+                        waiting.remove(command);
+                        throw reex;
+                    }
+                }
+            }
+        };
+    }
+
+    /** Runs the drain with an acquired slot on the workers or the scheduler, never inline */
+    private void handOff() {
+        try {
+            TaskManager.executor(null, false).execute(drain);
+        }
+        catch (RejectedExecutionException reex) {
+            running.decrementAndGet(); // Shut down, the waiting tasks never run
+        }
+    }
+
+    /** Takes a slot of the limit if one is free */
+    private boolean acquire() {
+        while (true) {
+            int current = running.get();
+            int limit = maxConcurrency;
+            if (limit != 0 && current >= limit) {
+                return false;
+            }
+            if (running.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gets this class's version number
+     *
+     * @return the class version
+     */
+    public static float getClassVersion() {
+        return classVersion;
+    }
+}
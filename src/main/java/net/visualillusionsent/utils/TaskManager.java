@@ -17,57 +17,322 @@
  */
 package net.visualillusionsent.utils;
 
-import java.util.Iterator;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Random;
 import java.util.concurrent.Callable;
-import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.ObjectName;
 
 import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static net.visualillusionsent.utils.Verify.notEmpty;
+import static net.visualillusionsent.utils.Verify.notNegative;
 import static net.visualillusionsent.utils.Verify.notNegativeOrZero;
 import static net.visualillusionsent.utils.Verify.notNull;
+import static net.visualillusionsent.utils.Verify.notOutOfRange;
 
 /**
  * Task Management System
  * <p/>
  * Creates a Thread Pool for handling executing delayed and continuous tasks
+ * <p/>
+ * The default pool has 8 core threads, changed with {@link #setCorePoolSize(int)}, or can be replaced by any
+ * {@link ScheduledExecutorService} with {@link #setScheduler(ScheduledExecutorService)}.
+ * With {@link #setWorkerThreads(boolean)} the bodies of tasks run on worker threads instead, virtual threads where the
+ * JVM has them and an elastic pool otherwise, and the scheduler only hands them over when they are due.
+ * Blocking tasks then no longer starve the scheduler.
+ * <p/>
+ * For large numbers of short delayed tasks, such as cooldowns and timeouts, {@link #enableTimingWheel(long, TimeUnit)}
+ * schedules delayed tasks on a hashed timing wheel. Scheduling and cancelling them then take constant time,
+ * at the cost of running them up to one tick late.
+ * <p/>
+ * Besides fixed rate tasks there are fixed delay tasks with an optional jitter, fixed rate tasks spread evenly over their
+ * period and tasks on a {@link CronSchedule}.
+ * <p/>
+ * Tasks can be scheduled in a named {@link TaskGroup}, whose tasks are cancelled together and may be limited
+ * to a number of threads at once.
+ * <p/>
+ * {@link #getMetrics()} reports the number of scheduled, queued and running tasks. With {@link #setMetricsEnabled(boolean)}
+ * it also reports how late tasks start and how long they run, with counters by task class and group.
+ * The metrics can be published over JMX with {@link #registerMBean()}.
+ * <p/>
+ * Large batches of small independent jobs are better run with {@link #invokeBatch(Collection, BatchTask)} and its
+ * siblings than submitted one by one. They run on a pool of their own, one thread per processor, in adaptively sized chunks.
  *
  * @author Jason (darkdiplomat)
- * @version 1.3
+ * @version 1.4
  * @since 1.0.0
  */
 public final class TaskManager {
 
     /** Class Version */
-    private static final float classVersion = 1.3F; /* VIUtils 1.3.1 | 1.3 */
-    /** The ThreadPool object */
+    private static final float classVersion = 1.4F; /* VIUtils 1.4.3 | 1.4 */
+    /** The default ThreadPool object */
     private static final ScheduledThreadPoolExecutor threadPool;
-    /** The Map of Tasks */
-    private static final ConcurrentHashMap<Task, ScheduledFuture<?>> tasks;
+    /** The scheduled Tasks */
+    private static final TaskRegistry tasks;
+    /** The scheduler in use, the default ThreadPool unless replaced */
+    private static volatile ScheduledExecutorService scheduler;
+    /** The executor task bodies run on, {@code null} while they run on the scheduler */
+    private static volatile ExecutorService workers;
+    /** The worker executor once created, kept when worker threads are turned off again */
+    private static ExecutorService workerPool;
+    /** The timing wheel for delayed tasks, {@code null} while they go to the scheduler */
+    private static volatile TimingWheel wheel;
+    /** The pool batches run on, created on first use */
+    private static ExecutorService batchPool;
+    /** The number of spread tasks by period in nanoseconds */
+    private static final ConcurrentHashMap<Long, AtomicInteger> phases = new ConcurrentHashMap<Long, AtomicInteger>();
+    /** The fractional part of the golden ratio, steps of it never line up */
+    private static final double GOLDEN_RATIO = 0.6180339887498949D;
+    /** Picks jitters */
+    private static final Random random = new Random();
+    /** The task groups by name */
+    private static final ConcurrentHashMap<String, TaskGroup> groups = new ConcurrentHashMap<String, TaskGroup>();
+    /** The recorder of metrics, {@code null} while they are disabled */
+    private static volatile TaskMetricsRecorder metrics;
+    /** The name the metrics are registered under with JMX */
+    private static final String MBEAN_NAME = "net.visualillusionsent.utils:type=TaskManager";
 
     static {
-        threadPool = new ScheduledThreadPoolExecutor(8); // Set the max number of core idle threads
+        threadPool = new ScheduledThreadPoolExecutor(8, new NamedThreadFactory("VIUtils-TaskManager-", false)); // Set the max number of core idle threads
         threadPool.setKeepAliveTime(5, SECONDS); // How long to keep idle threads alive
         threadPool.allowCoreThreadTimeOut(true); // Allow the core threads to time out
         threadPool.setContinueExistingPeriodicTasksAfterShutdownPolicy(false); //Don't execute anything after shutdown
         threadPool.setExecuteExistingDelayedTasksAfterShutdownPolicy(false); //Don't execute anything after shutdown
-        tasks = new ConcurrentHashMap<Task, ScheduledFuture<?>>(); // Create the map for Task tracking
-        scheduleContinuedTaskInMillis(new TaskCleaner(), 10, 10); // Schedule the clean up
+        tasks = new TaskRegistry(); // Create the registry for Task tracking
+        scheduler = threadPool;
     }
 
     /** Constructions disallowed */
     private TaskManager() {
     }
 
+    /**
+     * Sets the number of core threads of the default pool, the pool grows to it as tasks are submitted
+     *
+     * @param size
+     *         the number of core threads
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code size} is equal to or less than zero
+     */
+    public static void setCorePoolSize(int size) {
+        notNegativeOrZero(size, "int size");
+        threadPool.setCorePoolSize(size);
+    }
+
+    /**
+     * Gets the number of core threads of the default pool
+     *
+     * @return the number of core threads
+     */
+    public static int getCorePoolSize() {
+        return threadPool.getCorePoolSize();
+    }
+
+    /**
+     * Replaces the scheduler tasks are scheduled on<br>
+     * Tasks already scheduled keep running where they were scheduled. The scheduler is not shut down by the TaskManager.
+     *
+     * @param service
+     *         the {@link ScheduledExecutorService} to use, or {@code null} to go back to the default pool
+     */
+    public static void setScheduler(ScheduledExecutorService service) {
+        scheduler = service == null ? threadPool : service;
+    }
+
+    /**
+     * Gets the scheduler tasks are scheduled on
+     *
+     * @return the scheduler
+     */
+    public static ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Sets whether the bodies of tasks run on worker threads rather than on the scheduler<br>
+     * Worker threads are virtual threads if the JVM supports them, otherwise they come from a pool that grows with the
+     * number of running tasks and shrinks once they are idle. Only tasks scheduled afterwards are affected.
+     *
+     * @param enabled
+     *         {@code true} to run bodies on worker threads; {@code false} to run them on the scheduler
+     */
+    public static synchronized void setWorkerThreads(boolean enabled) {
+        if (enabled && workerPool == null) {
+            workerPool = createWorkerPool();
+        }
+        workers = enabled ? workerPool : null;
+    }
+
+    /**
+     * Checks whether the bodies of tasks run on worker threads
+     *
+     * @return {@code true} if they do; {@code false} if they run on the scheduler
+     */
+    public static boolean isWorkerThreads() {
+        return workers != null;
+    }
+
+    /**
+     * Schedules delayed tasks on a hashed timing wheel instead of the scheduler<br>
+     * Due tasks are run on the worker threads if enabled, otherwise on the scheduler. Continued tasks are not affected.
+     * Tasks already on a previous wheel still run on it.
+     *
+     * @param tick
+     *         the resolution of the wheel, tasks run at most this long after their delay
+     * @param timeUnit
+     *         the {@link TimeUnit} of the tick
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code timeUnit} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code tick} is equal to or less than zero
+     */
+    public static void enableTimingWheel(long tick, TimeUnit timeUnit) {
+        notNegativeOrZero(tick, "long tick");
+        notNull(timeUnit, "TimeUnit timeUnit");
+        wheel = new TimingWheel(timeUnit.toNanos(tick), 512);
+    }
+
+    /** Schedules delayed tasks on the scheduler again, tasks already on the wheel still run on it */
+    public static void disableTimingWheel() {
+        wheel = null;
+    }
+
+    /**
+     * Checks whether delayed tasks are scheduled on a timing wheel
+     *
+     * @return {@code true} if they are; {@code false} if they go to the scheduler
+     */
+    public static boolean isTimingWheel() {
+        return wheel != null;
+    }
+
+    /**
+     * Sets whether the lag, execution time and counters of scheduled tasks are recorded<br>
+     * Recording costs a few atomic updates per run. Enabling starts from zero again; tasks already running are not recorded.
+     *
+     * @param enabled
+     *         {@code true} to record metrics; {@code false} to stop and discard them
+     */
+    public static synchronized void setMetricsEnabled(boolean enabled) {
+        if (enabled != (metrics != null)) {
+            metrics = enabled ? new TaskMetricsRecorder() : null;
+        }
+    }
+
+    /**
+     * Checks whether metrics are recorded
+     *
+     * @return {@code true} if they are; {@code false} otherwise
+     */
+    public static boolean isMetricsEnabled() {
+        return metrics != null;
+    }
+
+    /**
+     * Takes a snapshot of the metrics<br>
+     * The histograms and counters are empty while metrics are disabled.
+     *
+     * @return the {@link TaskMetrics}
+     */
+    public static TaskMetrics getMetrics() {
+        TaskMetricsRecorder recorder = metrics;
+        if (recorder == null) {
+            recorder = new TaskMetricsRecorder();
+        }
+        return recorder.snapshot(tasks.size(), queuedCount());
+    }
+
+    /** Gets the depth of the queue of the scheduler, 0 if it is not a ThreadPoolExecutor */
+    private static int queuedCount() {
+        ScheduledExecutorService current = scheduler;
+        return current instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) current).getQueue().size() : 0;
+    }
+
+    /**
+     * Registers the metrics with the platform MBeanServer as {@code net.visualillusionsent.utils:type=TaskManager}
+     *
+     * @return {@code true} if registered; {@code false} if already registered or JMX refused it
+     */
+    public static synchronized boolean registerMBean() {
+        try {
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                return false;
+            }
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(), name);
+            return true;
+        }
+        catch (Exception ex) {
+            UtilsLogger.warning("Failed to register the TaskManager MBean", ex);
+            return false;
+        }
+    }
+
+    /**
+     * Unregisters the metrics from the platform MBeanServer
+     *
+     * @return {@code true} if unregistered; {@code false} if not registered or JMX refused it
+     */
+    public static synchronized boolean unregisterMBean() {
+        try {
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                return false;
+            }
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            return true;
+        }
+        catch (Exception ex) {
+            UtilsLogger.warning("Failed to unregister the TaskManager MBean", ex);
+            return false;
+        }
+    }
+
+    /**
+     * Gets the recorder of metrics
+     *
+     * @return the recorder, {@code null} while metrics are disabled
+     */
+    static TaskMetricsRecorder metrics() {
+        return metrics;
+    }
+
+    private static ExecutorService createWorkerPool() {
+        try {
+            Method virtual = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        }
+        catch (Exception ex) {
+            // No virtual threads on this JVM
+        }
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, SECONDS, new SynchronousQueue<Runnable>(), new NamedThreadFactory("VIUtils-Worker-", true));
+    }
+
     /**
      * Executes a {@link Runnable} task immediately
      *
@@ -82,7 +347,13 @@ public final class TaskManager {
      */
     public static void executeTask(Runnable task) throws RejectedExecutionException {
         notNull(task, "Runnable task");
-        threadPool.execute(task); //wrap runnable for exception logging
+        ExecutorService current = workers;
+        if (current != null) {
+            current.execute(task);
+        }
+        else {
+            scheduler.execute(task); //wrap runnable for exception logging
+        }
     }
 
     /**
@@ -101,7 +372,8 @@ public final class TaskManager {
      */
     public static Future<?> submitTask(Runnable task) throws RejectedExecutionException {
         notNull(task, "Runnable task");
-        return threadPool.submit(task);
+        ExecutorService current = workers;
+        return current != null ? current.submit(task) : scheduler.submit(task);
     }
 
     /**
@@ -120,7 +392,133 @@ public final class TaskManager {
      */
     public static <V> Future<V> submitTask(Callable<V> task) throws RejectedExecutionException {
         notNull(task, "Callable task");
-        return threadPool.submit(task);
+        ExecutorService current = workers;
+        return current != null ? current.submit(task) : scheduler.submit(task);
+    }
+
+    /**
+     * Processes every item of a collection in parallel and waits for the combined result<br>
+     * The items are split into chunks taken by the threads of the batch pool as they free up; the calling thread
+     * processes chunks as well, so a batch started from within another batch still completes.
+     *
+     * @param items
+     *         the items to process
+     * @param task
+     *         the {@link BatchTask} processing each item
+     *
+     * @return the results combined in the order of the items, {@code null} for no items
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code items} or {@code task} is null
+     * @throws ExecutionException
+     *         if processing an item threw an exception, remaining items are skipped
+     * @throws InterruptedException
+     *         if interrupted while waiting for the other threads of the batch
+     */
+    public static <T, R> R invokeBatch(Collection<? extends T> items, BatchTask<? super T, R> task) throws ExecutionException, InterruptedException {
+        notNull(items, "Collection items");
+        notNull(task, "BatchTask task");
+        TaskBatch<T, R> batch = TaskBatch.of(items.toArray(), task, batchParallelism());
+        batch.start(batchPool(), true);
+        return batch.get();
+    }
+
+    /**
+     * Processes every index of a range in parallel and waits for the combined result
+     *
+     * @param from
+     *         the first index, inclusive
+     * @param to
+     *         the last index, exclusive
+     * @param task
+     *         the {@link BatchTask} processing each index
+     *
+     * @return the results combined in the order of the indexes, {@code null} for an empty range
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code task} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code from} is greater than {@code to}
+     * @throws ExecutionException
+     *         if processing an index threw an exception, remaining indexes are skipped
+     * @throws InterruptedException
+     *         if interrupted while waiting for the other threads of the batch
+     * @see #invokeBatch(Collection, BatchTask)
+     */
+    public static <R> R invokeBatch(int from, int to, BatchTask<? super Integer, R> task) throws ExecutionException, InterruptedException {
+        TaskBatch<Integer, R> batch = range(from, to, task);
+        batch.start(batchPool(), true);
+        return batch.get();
+    }
+
+    /**
+     * Processes every item of a collection in parallel on the batch pool
+     *
+     * @param items
+     *         the items to process
+     * @param task
+     *         the {@link BatchTask} processing each item
+     *
+     * @return a {@link Future} of the results combined in the order of the items; cancelling it skips the items not started yet and may interrupt the rest
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code items} or {@code task} is null
+     * @throws RejectedExecutionException
+     *         if the batch pool has been shut down
+     */
+    public static <T, R> Future<R> submitBatch(Collection<? extends T> items, BatchTask<? super T, R> task) throws RejectedExecutionException {
+        notNull(items, "Collection items");
+        notNull(task, "BatchTask task");
+        TaskBatch<T, R> batch = TaskBatch.of(items.toArray(), task, batchParallelism());
+        batch.start(batchPool(), false);
+        return batch;
+    }
+
+    /**
+     * Processes every index of a range in parallel on the batch pool
+     *
+     * @param from
+     *         the first index, inclusive
+     * @param to
+     *         the last index, exclusive
+     * @param task
+     *         the {@link BatchTask} processing each index
+     *
+     * @return a {@link Future} of the results combined in the order of the indexes; cancelling it skips the indexes not started yet and may interrupt the rest
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code task} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code from} is greater than {@code to}
+     * @throws RejectedExecutionException
+     *         if the batch pool has been shut down
+     */
+    public static <R> Future<R> submitBatch(int from, int to, BatchTask<? super Integer, R> task) throws RejectedExecutionException {
+        TaskBatch<Integer, R> batch = range(from, to, task);
+        batch.start(batchPool(), false);
+        return batch;
+    }
+
+    private static <R> TaskBatch<Integer, R> range(int from, int to, BatchTask<? super Integer, R> task) {
+        notNull(task, "BatchTask task");
+        notOutOfRange(from, to, "from must not be greater than to");
+        notOutOfRange((long) to - from, Integer.MAX_VALUE, "The range is too large");
+        return TaskBatch.range(from, to, task, batchParallelism());
+    }
+
+    /** Gets the batch pool, created on first use; it is separate from the scheduler so batches never wait behind delayed tasks */
+    private static synchronized ExecutorService batchPool() {
+        if (batchPool == null) {
+            int size = batchParallelism();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(size, size, 60, SECONDS, new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("VIUtils-Batch-", true));
+            pool.allowCoreThreadTimeOut(true);
+            batchPool = pool;
+        }
+        return batchPool;
+    }
+
+    private static int batchParallelism() {
+        return Runtime.getRuntime().availableProcessors();
     }
 
     /**
@@ -368,9 +766,7 @@ public final class TaskManager {
         notNegativeOrZero(delay, "Delay");
         notNull(timeUnit, "TimeUnit timeUnit");
 
-        ScheduledFuture<?> sTask = threadPool.schedule(task, delay, timeUnit);
-        tasks.put(new Task(task), sTask);
-        return sTask;
+        return scheduleDelayed(task, delay, timeUnit, null);
     }
 
     /**
@@ -398,9 +794,7 @@ public final class TaskManager {
         notNegativeOrZero(delay, "Delay");
         notNull(timeUnit, "TimeUnit timeUnit");
 
-        ScheduledFuture<V> sTask = threadPool.schedule(task, delay, timeUnit);
-        tasks.put(new Task(task), sTask);
-        return sTask;
+        return scheduleDelayed(task, delay, timeUnit, null);
     }
 
     /**
@@ -525,13 +919,160 @@ public final class TaskManager {
         notNull(task, "Runnable task");
         notNegativeOrZero(initialDelay, "long initialDelay");
 
-        ScheduledFuture<?> sTask = threadPool.scheduleAtFixedRate(task, initialDelay, delay, timeUnit);
-        tasks.put(new Task(task), sTask);
-        return sTask;
+        return scheduleContinued(task, initialDelay, delay, timeUnit, null);
+    }
+
+    /**
+     * Executes a {@link Runnable} task continually with a fixed delay between the end of one run and the start of the next<br>
+     * Unlike {@link #scheduleContinuedTask(Runnable, long, long, TimeUnit)}, runs of a slow task never queue up.
+     *
+     * @param task
+     *         the {@link Runnable} task to execute
+     * @param initialDelay
+     *         the delay before initial execution
+     * @param delay
+     *         the delay after each execution
+     * @param timeUnit
+     *         the {@link TimeUnit} to use
+     *
+     * @return a ScheduledFuture representing pending completion of the task and whose get() method will throw an exception upon cancellation
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code task} or {@code timeUnit} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if the {@code initialDelay} or {@code delay} is equal to or less than zero
+     * @throws RejectedExecutionException
+     *         at discretion of <tt>RejectedExecutionHandler</tt>, if task cannot be accepted
+     *         for execution because the executor has been shut down.
+     */
+    public static ScheduledFuture<?> scheduleFixedDelayTask(Runnable task, long initialDelay, long delay, TimeUnit timeUnit) throws RejectedExecutionException {
+        return scheduleFixedDelayTask(task, initialDelay, delay, 0, timeUnit);
+    }
+
+    /**
+     * Executes a {@link Runnable} task continually with a fixed delay plus a random jitter between the end of one run and the start of the next<br>
+     * The jitter keeps tasks with the same delay from running at the same moment.
+     *
+     * @param task
+     *         the {@link Runnable} task to execute
+     * @param initialDelay
+     *         the delay before initial execution
+     * @param delay
+     *         the delay after each execution
+     * @param jitter
+     *         the most added at random to each delay, the initial delay included
+     * @param timeUnit
+     *         the {@link TimeUnit} to use
+     *
+     * @return a ScheduledFuture representing pending completion of the task and whose get() method will throw an exception upon cancellation
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code task} or {@code timeUnit} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if the {@code initialDelay} or {@code delay} is equal to or less than zero, or {@code jitter} is negative
+     * @throws RejectedExecutionException
+     *         at discretion of <tt>RejectedExecutionHandler</tt>, if task cannot be accepted
+     *         for execution because the executor has been shut down.
+     */
+    public static ScheduledFuture<?> scheduleFixedDelayTask(Runnable task, long initialDelay, long delay, long jitter, TimeUnit timeUnit) throws RejectedExecutionException {
+        notNull(task, "Runnable task");
+        notNegativeOrZero(initialDelay, "long initialDelay");
+        notNegativeOrZero(delay, "long delay");
+        notNegative(jitter, "long jitter");
+        notNull(timeUnit, "TimeUnit timeUnit");
+        return scheduleFixedDelay(task, initialDelay, delay, jitter, timeUnit, null);
+    }
+
+    /**
+     * Executes a {@link Runnable} task continually at a fixed rate, spreading the tasks with the same period evenly over it<br>
+     * The first run is delayed by a phase within the period instead of a given delay. Tasks with the same period get
+     * phases following the golden ratio, so however many there are they stay about evenly apart.
+     *
+     * @param task
+     *         the {@link Runnable} task to execute
+     * @param period
+     *         the period between executions
+     * @param timeUnit
+     *         the {@link TimeUnit} to use
+     *
+     * @return a ScheduledFuture representing pending completion of the task and whose get() method will throw an exception upon cancellation
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code task} or {@code timeUnit} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if the {@code period} is equal to or less than zero
+     * @throws RejectedExecutionException
+     *         at discretion of <tt>RejectedExecutionHandler</tt>, if task cannot be accepted
+     *         for execution because the executor has been shut down.
+     */
+    public static ScheduledFuture<?> scheduleSpreadTask(Runnable task, long period, TimeUnit timeUnit) throws RejectedExecutionException {
+        notNull(task, "Runnable task");
+        notNegativeOrZero(period, "long period");
+        notNull(timeUnit, "TimeUnit timeUnit");
+
+        long periodNanos = timeUnit.toNanos(period);
+        AtomicInteger count = phases.get(periodNanos);
+        if (count == null) {
+            AtomicInteger created = new AtomicInteger();
+            count = phases.putIfAbsent(periodNanos, created);
+            if (count == null) {
+                count = created;
+            }
+        }
+        double phase = (count.getAndIncrement() * GOLDEN_RATIO) % 1.0D;
+        return scheduleContinued(task, Math.max(1, (long) (phase * periodNanos)), periodNanos, NANOSECONDS, null);
+    }
+
+    /**
+     * Executes a {@link Runnable} task at the times of a cron expression, see {@link CronSchedule}
+     *
+     * @param task
+     *         the {@link Runnable} task to execute
+     * @param expression
+     *         the cron expression, in the default time zone
+     *
+     * @return a ScheduledFuture representing pending completion of the task and whose get() method will throw an exception upon cancellation
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code task} or {@code expression} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if the {@code expression} is not a valid cron expression
+     * @throws RejectedExecutionException
+     *         at discretion of <tt>RejectedExecutionHandler</tt>, if task cannot be accepted
+     *         for execution because the executor has been shut down.
+     */
+    public static ScheduledFuture<?> scheduleCronTask(Runnable task, String expression) throws RejectedExecutionException {
+        notNull(task, "Runnable task");
+        return scheduleCronTask(task, new CronSchedule(expression));
+    }
+
+    /**
+     * Executes a {@link Runnable} task at the times of a {@link CronSchedule}
+     *
+     * @param task
+     *         the {@link Runnable} task to execute
+     * @param schedule
+     *         the schedule
+     *
+     * @return a ScheduledFuture representing pending completion of the task and whose get() method will throw an exception upon cancellation
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code task} or {@code schedule} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if the {@code schedule} never matches
+     * @throws RejectedExecutionException
+     *         at discretion of <tt>RejectedExecutionHandler</tt>, if task cannot be accepted
+     *         for execution because the executor has been shut down.
+     */
+    public static ScheduledFuture<?> scheduleCronTask(Runnable task, CronSchedule schedule) throws RejectedExecutionException {
+        notNull(task, "Runnable task");
+        notNull(schedule, "CronSchedule schedule");
+        return scheduleCron(task, schedule, null);
     }
 
     /**
-     * Removes a {@link Runnable} task from the pool
+     * Removes a {@link Runnable} task from the pool<br>
+     * Every scheduling of this exact task is cancelled, tasks are told apart by identity rather than {@code equals}
      *
      * @param task
      *         the {@link Runnable} task to be removed
@@ -539,23 +1080,20 @@ public final class TaskManager {
      * @return {@code true} if successfully removed, {@code false} if already stopped or non-existent
      */
     public static boolean removeTask(Runnable task) {
-        boolean check = false;
-        Task wrappedTask = Task.wrap(task);
-        if (tasks.containsKey(wrappedTask)) {
-            check = tasks.get(wrappedTask).cancel(true);
-            tasks.remove(wrappedTask);
-        }
-        if (!check) {
-            check = threadPool.remove(task);
+        boolean check = task != null && tasks.cancel(task, true) > 0;
+        ScheduledExecutorService current = scheduler;
+        if (!check && current instanceof ThreadPoolExecutor) {
+            check = ((ThreadPoolExecutor) current).remove(task);
         }
         if (check) {
-            threadPool.purge();
+            purge(current);
         }
         return check;
     }
 
     /**
-     * Removes a {@link Callable} task from the pool
+     * Removes a {@link Callable} task from the pool<br>
+     * Every scheduling of this exact task is cancelled, tasks are told apart by identity rather than {@code equals}
      *
      * @param task
      *         the {@link Callable} task to be removed
@@ -563,50 +1101,346 @@ public final class TaskManager {
      * @return {@code true} if successfully removed, {@code false} if already stopped or non-existent
      */
     public static boolean removeTask(Callable<?> task) {
-        boolean check = false;
-        Task wrappedTask = Task.wrap(task);
-        if (tasks.containsKey(wrappedTask)) {
-            check = tasks.get(wrappedTask).cancel(true);
-            tasks.remove(wrappedTask);
-        }
+        boolean check = task != null && tasks.cancel(task, true) > 0;
         if (check) {
-            threadPool.purge();
+            purge(scheduler);
         }
         return check;
     }
 
     /**
-     * Internal Task cleanup
+     * Cancels one scheduling of a task<br>
+     * The future returned by a schedule method is the handle of that one scheduling,
+     * other schedulings of the same {@link Runnable} or {@link Callable} keep running.
+     *
+     * @param handle
+     *         the future returned when the task was scheduled
+     *
+     * @return {@code true} if successfully cancelled, {@code false} if already stopped
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code handle} is null
+     */
+    public static boolean cancelTask(Future<?> handle) {
+        notNull(handle, "Future handle");
+        return handle.cancel(true);
+    }
+
+    /**
+     * Gets the number of scheduled tasks that have not completed yet
+     *
+     * @return the number of scheduled tasks
+     */
+    public static int getScheduledTaskCount() {
+        return tasks.size();
+    }
+
+    /**
+     * Gets a task group, creating it if it does not exist yet
+     *
+     * @param name
+     *         the name of the group
+     *
+     * @return the group
+     *
+     * @throws java.lang.NullPointerException
+     *         if {@code name} is null
+     * @throws java.lang.IllegalArgumentException
+     *         if {@code name} is empty
+     */
+    public static TaskGroup getTaskGroup(String name) {
+        notNull(name, "String name");
+        notEmpty(name, "String name");
+        TaskGroup group = groups.get(name);
+        if (group == null) {
+            TaskGroup created = new TaskGroup(name);
+            group = groups.putIfAbsent(name, created);
+            if (group == null) {
+                group = created;
+            }
+        }
+        return group;
+    }
+
+    /**
+     * Cancels all tasks of a task group and removes the group
+     *
+     * @param name
+     *         the name of the group
+     *
+     * @return {@code true} if the group existed; {@code false} otherwise
+     */
+    public static boolean removeTaskGroup(String name) {
+        TaskGroup group = name == null ? null : groups.remove(name);
+        if (group == null) {
+            return false;
+        }
+        group.cancelAll();
+        return true;
+    }
+
+    static ScheduledFuture<?> scheduleDelayed(Runnable task, long delay, TimeUnit timeUnit, TaskGroup group) {
+        TimingWheel timer = wheel;
+        if (timer != null) {
+            return track(timer.schedule(task, delay, timeUnit, executor(group, false), group));
+        }
+        ScheduledTask<Object> sTask = new ScheduledTask<Object>(task, executor(group, true), false, group);
+        sTask.setTimer(scheduler.schedule(sTask.dispatch, delay, timeUnit));
+        return track(sTask);
+    }
+
+    static <V> ScheduledFuture<V> scheduleDelayed(Callable<V> task, long delay, TimeUnit timeUnit, TaskGroup group) {
+        TimingWheel timer = wheel;
+        if (timer != null) {
+            return track(timer.schedule(task, delay, timeUnit, executor(group, false), group));
+        }
+        ScheduledTask<V> sTask = new ScheduledTask<V>(task, executor(group, true), group);
+        sTask.setTimer(scheduler.schedule(sTask.dispatch, delay, timeUnit));
+        return track(sTask);
+    }
+
+    static ScheduledFuture<?> scheduleContinued(Runnable task, long initialDelay, long delay, TimeUnit timeUnit, TaskGroup group) {
+        ScheduledTask<Object> sTask = new ScheduledTask<Object>(task, executor(group, true), true, group);
+        sTask.setTimer(scheduler.scheduleAtFixedRate(sTask.dispatch, initialDelay, delay, timeUnit));
+        return track(sTask);
+    }
+
+    static ScheduledFuture<?> scheduleFixedDelay(Runnable task, long initialDelay, long delay, long jitter, TimeUnit timeUnit, TaskGroup group) {
+        FixedDelay recurrence = new FixedDelay(timeUnit.toNanos(delay), timeUnit.toNanos(jitter));
+        ScheduledTask<Object> sTask = new ScheduledTask<Object>(task, executor(group, true), recurrence, group);
+        sTask.setTimer(scheduler.schedule(sTask.dispatch, timeUnit.toNanos(initialDelay) + recurrence.jitter(), NANOSECONDS));
+        return track(sTask);
+    }
+
+    static ScheduledFuture<?> scheduleCron(Runnable task, CronSchedule schedule, TaskGroup group) {
+        Cron recurrence = new Cron(schedule);
+        ScheduledTask<Object> sTask = new ScheduledTask<Object>(task, executor(group, true), recurrence, group);
+        sTask.setTimer(scheduler.schedule(sTask.dispatch, recurrence.nextDelay(), NANOSECONDS));
+        return track(sTask);
+    }
+
+    /** Runs a task of a group as soon as possible, tracked so the group can cancel it */
+    static <V> Future<V> submit(ScheduledTask<V> task) {
+        track(task);
+        try {
+            task.dispatch.run();
+        }
+        catch (RejectedExecutionException reex) {
+            task.cancel(false);
+            throw reex;
+        }
+        return task;
+    }
+
+    /**
+     * Gets the executor for task bodies
+     *
+     * @param group
+     *         the group of the task, or {@code null}
+     * @param direct
+     *         whether the thread that dispatches the task may run it, when there are no worker threads
+     *
+     * @return the worker threads, or the dispatching thread or scheduler; limited by the group
+     */
+    static Executor executor(TaskGroup group, boolean direct) {
+        Executor base = workers;
+        if (base == null) {
+            base = direct ? ScheduledTask.DIRECT : scheduler;
+        }
+        return group == null ? base : group.gate(base);
+    }
+
+    /** Keeps a task until it is done, it removes itself once completed or cancelled */
+    private static <V> TrackedTask<V> track(TrackedTask<V> task) {
+        tasks.add(task);
+        if (task.group != null) {
+            task.group.add(task);
+        }
+        if (task.isDone()) { // Completed before it was added
+            untrack(task);
+        }
+        return task;
+    }
+
+    /**
+     * Removes a completed or cancelled task
+     *
+     * @param task
+     *         the task
+     */
+    static void untrack(TrackedTask<?> task) {
+        tasks.remove(task);
+        if (task.group != null) {
+            task.group.remove(task);
+        }
+    }
+
+    /** Drops cancelled tasks from the queue of the scheduler */
+    static void purge() {
+        purge(scheduler);
+    }
+
+    /** Drops cancelled tasks from the queue of a pool */
+    private static void purge(ScheduledExecutorService service) {
+        if (service instanceof ThreadPoolExecutor) {
+            ((ThreadPoolExecutor) service).purge();
+        }
+    }
+
+    /**
+     * A fixed delay with an optional random jitter
+     *
+     * @author Jason (darkdiplomat)
+     */
+    private static final class FixedDelay extends ScheduledTask.Recurrence {
+        private final long delay, jitter;
+
+        FixedDelay(long delay, long jitter) {
+            this.delay = delay;
+            this.jitter = jitter;
+        }
+
+        final long jitter() {
+            return jitter == 0 ? 0 : (long) (random.nextDouble() * (jitter + 1));
+        }
+
+        @Override
+        final long nextDelay() {
+            return delay + jitter();
+        }
+    }
+
+    /**
+     * The times of a cron schedule<br>
+     * Each time is found after the previous planned one, so a scheduler waking early, a run shorter than a millisecond
+     * or the wall clock stepping back never plans the same minute twice.
      *
      * @author Jason (darkdiplomat)
      */
-    private static final class TaskCleaner implements Runnable {
+    private static final class Cron extends ScheduledTask.Recurrence {
+        private final CronSchedule schedule;
+        private long lastFire; // Only touched by one run at a time
+
+        Cron(CronSchedule schedule) {
+            this.schedule = schedule;
+        }
 
         @Override
-        public final void run() { //Run to clean up any memory leaks we may cause by holding dead tasks
-            if (tasks.isEmpty()) {
-                return; // skip cleaning if there are no tasks
-            }
-            Iterator<Task> taskItr = tasks.keySet().iterator();
-            while (taskItr.hasNext()) {
-                Task task = taskItr.next(); //Get the task
-                if (tasks.get(task).isDone()) { // Check task for completion
-                    try {
-                        tasks.get(task).get(); // Test for execution exceptions
-                    }
-                    catch (CancellationException cex) {
-                        // Don't care if it was cancelled
-                    }
-                    catch (InterruptedException e) {
-                        // The task was probably canceled so skip this
-                    }
-                    catch (ExecutionException eex) {
-                        //This is important if an exception was caused in execution, print out the exception immediately
-                        task.printError(eex.getCause()); // Call the printError message for the proper Task name rather than the wrapper's name
-                    }
-                    taskItr.remove();
-                }
-            }
+        final long nextDelay() {
+            long now = System.currentTimeMillis();
+            lastFire = schedule.next(Math.max(now, lastFire));
+            return MILLISECONDS.toNanos(Math.max(0, lastFire - now));
+        }
+    }
+
+    /**
+     * The metrics as an MXBean
+     *
+     * @author Jason (darkdiplomat)
+     */
+    private static final class MetricsBean implements TaskMetricsMXBean {
+
+        @Override
+        public final boolean isMetricsEnabled() {
+            return TaskManager.isMetricsEnabled();
+        }
+
+        @Override
+        public final void setMetricsEnabled(boolean enabled) {
+            TaskManager.setMetricsEnabled(enabled);
+        }
+
+        @Override
+        public final int getScheduledCount() {
+            return tasks.size();
+        }
+
+        @Override
+        public final int getQueuedCount() {
+            return queuedCount();
+        }
+
+        @Override
+        public final int getActiveCount() {
+            TaskMetricsRecorder recorder = metrics;
+            return recorder == null ? 0 : recorder.active();
+        }
+
+        @Override
+        public final long getCompletedCount() {
+            TaskMetricsRecorder recorder = metrics;
+            return recorder == null ? 0 : recorder.completed();
+        }
+
+        @Override
+        public final long getFailedCount() {
+            TaskMetricsRecorder recorder = metrics;
+            return recorder == null ? 0 : recorder.failed();
+        }
+
+        @Override
+        public final long getCancelledCount() {
+            TaskMetricsRecorder recorder = metrics;
+            return recorder == null ? 0 : recorder.cancelled();
+        }
+
+        @Override
+        public final long getLagMeanMicros() {
+            TaskMetricsRecorder recorder = metrics;
+            return recorder == null ? 0 : recorder.lag().getMean(MICROSECONDS);
+        }
+
+        @Override
+        public final long getLag99thPercentileMicros() {
+            TaskMetricsRecorder recorder = metrics;
+            return recorder == null ? 0 : recorder.lag().getPercentile(99, MICROSECONDS);
+        }
+
+        @Override
+        public final long getLagMaxMicros() {
+            TaskMetricsRecorder recorder = metrics;
+            return recorder == null ? 0 : NANOSECONDS.toMicros(recorder.maxLag());
+        }
+
+        @Override
+        public final long getExecutionMeanMicros() {
+            TaskMetricsRecorder recorder = metrics;
+            return recorder == null ? 0 : recorder.execution().getMean(MICROSECONDS);
+        }
+
+        @Override
+        public final long getExecution99thPercentileMicros() {
+            TaskMetricsRecorder recorder = metrics;
+            return recorder == null ? 0 : recorder.execution().getPercentile(99, MICROSECONDS);
+        }
+
+        @Override
+        public final long getExecutionMaxMicros() {
+            TaskMetricsRecorder recorder = metrics;
+            return recorder == null ? 0 : NANOSECONDS.toMicros(recorder.maxExecution());
+        }
+    }
+
+    /**
+     * Names the threads of a pool
+     *
+     * @author Jason (darkdiplomat)
+     */
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+        private final String prefix;
+        private final boolean daemon;
+
+        NamedThreadFactory(String prefix, boolean daemon) {
+            this.prefix = prefix;
+            this.daemon = daemon;
+        }
+
+        @Override
+        public final Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix.concat(String.valueOf(count.incrementAndGet())));
+            thread.setDaemon(daemon);
+            return thread;
         }
     }
 
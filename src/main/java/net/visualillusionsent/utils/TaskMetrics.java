@@ -0,0 +1,319 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static net.visualillusionsent.utils.Verify.notNull;
+
+/**
+ * Task Metrics
+ * <p/>
+ * A snapshot of the metrics of the {@link TaskManager}, taken with {@link TaskManager#getMetrics()}.<br>
+ * The gauges are always available. The histograms and counters are only recorded while metrics are enabled with
+ * {@link TaskManager#setMetricsEnabled(boolean)}, and count from the moment they were enabled.
+ * <p/>
+ * The scheduling lag is how long after its due time a task started, including any time it waited for a thread or
+ * for the limit of its {@link TaskGroup}. The execution time is how long its body ran.
+ *
+ * @author Jason (darkdiplomat)
+ * @version 1.0
+ * @since 1.4.3
+ */
+public final class TaskMetrics {
+
+    /* 1.0 @ VIUtils 1.4.3 */
+    private static final float classVersion = 1.0F;
+    private final int scheduled, queued, active;
+    private final long completed, failed, cancelled;
+    private final Histogram lag, execution;
+    private final Map<String, Counter> taskCounters, groupCounters;
+
+    TaskMetrics(int scheduled, int queued, int active, long completed, long failed, long cancelled, Histogram lag, Histogram execution, Map<String, Counter> taskCounters, Map<String, Counter> groupCounters) {
+        this.scheduled = scheduled;
+        this.queued = queued;
+        this.active = active;
+        this.completed = completed;
+        this.failed = failed;
+        this.cancelled = cancelled;
+        this.lag = lag;
+        this.execution = execution;
+        this.taskCounters = Collections.unmodifiableMap(taskCounters);
+        this.groupCounters = Collections.unmodifiableMap(groupCounters);
+    }
+
+    /**
+     * Gets the number of scheduled tasks that have not completed yet
+     *
+     * @return the scheduled task count
+     */
+    public final int getScheduledCount() {
+        return scheduled;
+    }
+
+    /**
+     * Gets the number of tasks in the queue of the scheduler, due or not
+     *
+     * @return the queue depth, 0 if the scheduler is not a {@link java.util.concurrent.ThreadPoolExecutor}
+     */
+    public final int getQueuedCount() {
+        return queued;
+    }
+
+    /**
+     * Gets the number of task bodies running right now
+     *
+     * @return the active task count
+     */
+    public final int getActiveCount() {
+        return active;
+    }
+
+    /**
+     * Gets the number of task runs that returned normally, a continued task counts once per run<br>
+     * Runs that failed or were cancelled while running are not counted, so completed, failed and cancelled do not overlap.
+     *
+     * @return the completed run count
+     */
+    public final long getCompletedCount() {
+        return completed;
+    }
+
+    /**
+     * Gets the number of tasks that threw an exception
+     *
+     * @return the failed task count
+     */
+    public final long getFailedCount() {
+        return failed;
+    }
+
+    /**
+     * Gets the number of tasks that were cancelled
+     *
+     * @return the cancelled task count
+     */
+    public final long getCancelledCount() {
+        return cancelled;
+    }
+
+    /**
+     * Gets the histogram of how long after their due time tasks started
+     *
+     * @return the scheduling lag histogram
+     */
+    public final Histogram getLag() {
+        return lag;
+    }
+
+    /**
+     * Gets the histogram of how long task bodies ran, whatever the outcome of the run
+     *
+     * @return the execution time histogram
+     */
+    public final Histogram getExecutionTime() {
+        return execution;
+    }
+
+    /**
+     * Gets the counters by the class name of the tasks
+     *
+     * @return an unmodifiable map of the counters
+     */
+    public final Map<String, Counter> getTaskCounters() {
+        return taskCounters;
+    }
+
+    /**
+     * Gets the counters by the name of the {@link TaskGroup} of the tasks
+     *
+     * @return an unmodifiable map of the counters
+     */
+    public final Map<String, Counter> getGroupCounters() {
+        return groupCounters;
+    }
+
+    @Override
+    public final String toString() {
+        return String.format("TaskMetrics[scheduled=%d, queued=%d, active=%d, completed=%d, failed=%d, cancelled=%d, lag=%s, execution=%s]",
+                scheduled, queued, active, completed, failed, cancelled, lag, execution);
+    }
+
+    /**
+     * Histogram of durations with buckets by powers of two nanoseconds<br>
+     * Percentiles are therefore within a factor of two, which is plenty to tell microseconds from seconds.
+     */
+    public static final class Histogram {
+        private final long[] buckets; // bucket i counts durations below 2^i nanoseconds
+        private final long count, total, max;
+
+        Histogram(long[] buckets, long total, long max) {
+            this.buckets = buckets;
+            long sum = 0;
+            for (long bucket : buckets) {
+                sum += bucket;
+            }
+            this.count = sum;
+            this.total = total;
+            this.max = max;
+        }
+
+        /**
+         * Gets the number of recorded durations
+         *
+         * @return the count
+         */
+        public final long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the mean duration
+         *
+         * @param unit
+         *         the {@link TimeUnit} of the result
+         *
+         * @return the mean, 0 if nothing was recorded
+         */
+        public final long getMean(TimeUnit unit) {
+            notNull(unit, "TimeUnit unit");
+            return count == 0 ? 0 : unit.convert(total / count, NANOSECONDS);
+        }
+
+        /**
+         * Gets the longest duration
+         *
+         * @param unit
+         *         the {@link TimeUnit} of the result
+         *
+         * @return the maximum, 0 if nothing was recorded
+         */
+        public final long getMax(TimeUnit unit) {
+            notNull(unit, "TimeUnit unit");
+            return unit.convert(max, NANOSECONDS);
+        }
+
+        /**
+         * Gets a percentile of the durations, as the upper bound of the bucket it falls in
+         *
+         * @param percentile
+         *         the percentile, from 0 to 100
+         * @param unit
+         *         the {@link TimeUnit} of the result
+         *
+         * @return the percentile, 0 if nothing was recorded
+         *
+         * @throws java.lang.IllegalArgumentException
+         *         if {@code percentile} is not between 0 and 100
+         */
+        public final long getPercentile(double percentile, TimeUnit unit) {
+            notNull(unit, "TimeUnit unit");
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100");
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100 * count);
+            long seen = 0;
+            for (int index = 0; index < buckets.length; index++) {
+                seen += buckets[index];
+                if (seen >= rank && seen > 0) {
+                    long bound = index >= 63 ? Long.MAX_VALUE : (1L << index) - 1;
+                    return unit.convert(Math.min(bound, max), NANOSECONDS);
+                }
+            }
+            return unit.convert(max, NANOSECONDS);
+        }
+
+        @Override
+        public final String toString() {
+            return String.format("[count=%d, mean=%dus, p50=%dus, p99=%dus, max=%dus]", count, getMean(TimeUnit.MICROSECONDS),
+                    getPercentile(50, TimeUnit.MICROSECONDS), getPercentile(99, TimeUnit.MICROSECONDS), getMax(TimeUnit.MICROSECONDS));
+        }
+    }
+
+    /** Counts of the tasks of one class or group */
+    public static final class Counter {
+        private final long runs, failures, cancellations, time;
+
+        Counter(long runs, long failures, long cancellations, long time) {
+            this.runs = runs;
+            this.failures = failures;
+            this.cancellations = cancellations;
+            this.time = time;
+        }
+
+        /**
+         * Gets the number of runs, including those that failed or were cancelled while running
+         *
+         * @return the run count
+         */
+        public final long getRuns() {
+            return runs;
+        }
+
+        /**
+         * Gets the number of tasks that threw an exception
+         *
+         * @return the failure count
+         */
+        public final long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Gets the number of tasks that were cancelled
+         *
+         * @return the cancellation count
+         */
+        public final long getCancellations() {
+            return cancellations;
+        }
+
+        /**
+         * Gets the total time the runs took
+         *
+         * @param unit
+         *         the {@link TimeUnit} of the result
+         *
+         * @return the total execution time
+         */
+        public final long getTotalTime(TimeUnit unit) {
+            notNull(unit, "TimeUnit unit");
+            return unit.convert(time, NANOSECONDS);
+        }
+
+        @Override
+        public final String toString() {
+            return String.format("[runs=%d, failures=%d, cancellations=%d, time=%dms]", runs, failures, cancellations, getTotalTime(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * Gets this class's version number
+     *
+     * @return the class version
+     */
+    public static float getClassVersion() {
+        return classVersion;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+/**
+ * Task Metrics MXBean
+ * <p/>
+ * The management interface of the {@link TaskManager} metrics, registered with {@link TaskManager#registerMBean()}.<br>
+ * Each attribute reads a fresh {@link TaskMetrics} snapshot; durations are in microseconds.
+ *
+ * @author Jason (darkdiplomat)
+ * @version 1.0
+ * @since 1.4.3
+ */
+public interface TaskMetricsMXBean {
+
+    /**
+     * Checks whether metrics are recorded
+     *
+     * @return {@code true} if they are; {@code false} otherwise
+     */
+    boolean isMetricsEnabled();
+
+    /**
+     * Sets whether metrics are recorded
+     *
+     * @param enabled
+     *         {@code true} to record them; {@code false} to stop
+     */
+    void setMetricsEnabled(boolean enabled);
+
+    /** @see TaskMetrics#getScheduledCount() */
+    int getScheduledCount();
+
+    /** @see TaskMetrics#getQueuedCount() */
+    int getQueuedCount();
+
+    /** @see TaskMetrics#getActiveCount() */
+    int getActiveCount();
+
+    /** @see TaskMetrics#getCompletedCount() */
+    long getCompletedCount();
+
+    /** @see TaskMetrics#getFailedCount() */
+    long getFailedCount();
+
+    /** @see TaskMetrics#getCancelledCount() */
+    long getCancelledCount();
+
+    /** @see TaskMetrics#getLag() */
+    long getLagMeanMicros();
+
+    /** @see TaskMetrics#getLag() */
+    long getLag99thPercentileMicros();
+
+    /** @see TaskMetrics#getLag() */
+    long getLagMaxMicros();
+
+    /** @see TaskMetrics#getExecutionTime() */
+    long getExecutionMeanMicros();
+
+    /** @see TaskMetrics#getExecutionTime() */
+    long getExecution99thPercentileMicros();
+
+    /** @see TaskMetrics#getExecutionTime() */
+    long getExecutionMaxMicros();
+}
@@ -0,0 +1,204 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records the metrics of the {@link TaskManager} while they are enabled
+ * <p/>
+ * Recording a run costs a few atomic increments and two map lookups; nothing is allocated once a task class
+ * or group has been seen. {@link TaskMetrics} snapshots are made from it on request.
+ *
+ * @author Jason (darkdiplomat)
+ * @since 1.4.3
+ */
+final class TaskMetricsRecorder {
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final Durations lag = new Durations();
+    private final Durations execution = new Durations();
+    private final ConcurrentHashMap<String, Counts> byTask = new ConcurrentHashMap<String, Counts>();
+    private final ConcurrentHashMap<String, Counts> byGroup = new ConcurrentHashMap<String, Counts>();
+
+    /**
+     * Records the start of a run
+     *
+     * @param lagNanos
+     *         how long after its due time the task started, negative if the task has no due time
+     */
+    final void started(long lagNanos) {
+        active.incrementAndGet();
+        if (lagNanos >= 0) {
+            lag.record(lagNanos);
+        }
+    }
+
+    /**
+     * Records the end of a run
+     *
+     * @param task
+     *         the task
+     * @param nanos
+     *         how long the run took
+     * @param succeeded
+     *         whether the run returned normally, rather than failing or being cancelled
+     */
+    final void finished(TrackedTask<?> task, long nanos, boolean succeeded) {
+        active.decrementAndGet();
+        if (succeeded) {
+            completed.incrementAndGet();
+        }
+        execution.record(nanos);
+        counts(byTask, task.body.getClass().getName()).run(nanos);
+        if (task.group != null) {
+            counts(byGroup, task.group.getName()).run(nanos);
+        }
+    }
+
+    final void failed(TrackedTask<?> task) {
+        failed.incrementAndGet();
+        counts(byTask, task.body.getClass().getName()).failures.incrementAndGet();
+        if (task.group != null) {
+            counts(byGroup, task.group.getName()).failures.incrementAndGet();
+        }
+    }
+
+    final void cancelled(TrackedTask<?> task) {
+        cancelled.incrementAndGet();
+        counts(byTask, task.body.getClass().getName()).cancellations.incrementAndGet();
+        if (task.group != null) {
+            counts(byGroup, task.group.getName()).cancellations.incrementAndGet();
+        }
+    }
+
+    final int active() {
+        return active.get();
+    }
+
+    final long completed() {
+        return completed.get();
+    }
+
+    final long failed() {
+        return failed.get();
+    }
+
+    final long cancelled() {
+        return cancelled.get();
+    }
+
+    /** @return a snapshot of the lag histogram alone */
+    final TaskMetrics.Histogram lag() {
+        return lag.snapshot();
+    }
+
+    /** @return a snapshot of the execution time histogram alone */
+    final TaskMetrics.Histogram execution() {
+        return execution.snapshot();
+    }
+
+    final long maxLag() {
+        return lag.max.get();
+    }
+
+    final long maxExecution() {
+        return execution.max.get();
+    }
+
+    private static Counts counts(ConcurrentHashMap<String, Counts> map, String key) {
+        Counts counts = map.get(key);
+        if (counts == null) {
+            Counts created = new Counts();
+            counts = map.putIfAbsent(key, created);
+            if (counts == null) {
+                counts = created;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Takes a snapshot
+     *
+     * @param scheduled
+     *         the number of scheduled tasks
+     * @param queued
+     *         the depth of the queue of the scheduler
+     *
+     * @return the snapshot
+     */
+    final TaskMetrics snapshot(int scheduled, int queued) {
+        return new TaskMetrics(scheduled, queued, active.get(), completed.get(), failed.get(), cancelled.get(),
+                lag.snapshot(), execution.snapshot(), snapshot(byTask), snapshot(byGroup));
+    }
+
+    private static Map<String, TaskMetrics.Counter> snapshot(ConcurrentHashMap<String, Counts> map) {
+        HashMap<String, TaskMetrics.Counter> counters = new HashMap<String, TaskMetrics.Counter>();
+        for (Map.Entry<String, Counts> entry : map.entrySet()) {
+            Counts counts = entry.getValue();
+            counters.put(entry.getKey(), new TaskMetrics.Counter(counts.runs.get(), counts.failures.get(), counts.cancellations.get(), counts.time.get()));
+        }
+        return counters;
+    }
+
+    /** Durations in buckets by powers of two nanoseconds */
+    private static final class Durations {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        final void record(long nanos) {
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(nanos) & 63); // below 2^i
+            total.addAndGet(nanos);
+            long current;
+            while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+                // Retry, another thread raised it
+            }
+        }
+
+        final TaskMetrics.Histogram snapshot() {
+            long[] counts = new long[buckets.length()];
+            for (int index = 0; index < counts.length; index++) {
+                counts[index] = buckets.get(index);
+            }
+            return new TaskMetrics.Histogram(counts, total.get(), max.get());
+        }
+    }
+
+    /** Counts of one task class or group */
+    private static final class Counts {
+        final AtomicLong runs = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong cancellations = new AtomicLong();
+        final AtomicLong time = new AtomicLong();
+
+        void run(long nanos) {
+            runs.incrementAndGet();
+            time.addAndGet(nanos);
+        }
+    }
+}
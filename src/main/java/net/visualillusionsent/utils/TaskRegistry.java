@@ -0,0 +1,180 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+/**
+ * The scheduled tasks of the {@link TaskManager}, by the identity of their {@link Runnable} or {@link java.util.concurrent.Callable}
+ * <p/>
+ * The tasks are linked into the hash chains themselves, so adding, removing and looking them up allocates nothing.
+ * The same Runnable may be scheduled any number of times, each scheduling is its own {@link TrackedTask}.
+ * The table is split into segments with a lock each, which keeps threads scheduling at once from contending.
+ *
+ * @author Jason (darkdiplomat)
+ * @since 1.4.3
+ */
+final class TaskRegistry {
+
+    private static final int SEGMENT_SHIFT = 28; // 16 segments by the top bits of the hash
+    private final Segment[] segments = new Segment[1 << (32 - SEGMENT_SHIFT)];
+
+    TaskRegistry() {
+        for (int index = 0; index < segments.length; index++) {
+            segments[index] = new Segment();
+        }
+    }
+
+    /**
+     * Spreads an identity hash, as identity hashes of objects allocated together may be close
+     *
+     * @param body
+     *         the Runnable or Callable
+     *
+     * @return the spread hash
+     */
+    static int hash(Object body) {
+        int hash = System.identityHashCode(body);
+        hash ^= (hash >>> 16);
+        hash *= 0x85EBCA6B;
+        hash ^= (hash >>> 13);
+        return hash;
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[hash >>> SEGMENT_SHIFT];
+    }
+
+    /**
+     * Adds a task, adding it again does nothing
+     *
+     * @param task
+     *         the task
+     */
+    final void add(TrackedTask<?> task) {
+        segmentFor(task.hash).add(task);
+    }
+
+    /**
+     * Removes a task, removing it again does nothing
+     *
+     * @param task
+     *         the task
+     */
+    final void remove(TrackedTask<?> task) {
+        segmentFor(task.hash).remove(task);
+    }
+
+    /**
+     * Cancels every scheduling of a task
+     *
+     * @param body
+     *         the Runnable or Callable
+     * @param mayInterrupt
+     *         whether running tasks get interrupted
+     *
+     * @return the number of schedulings cancelled
+     */
+    final int cancel(Object body, boolean mayInterrupt) {
+        int hash = hash(body);
+        return segmentFor(hash).cancel(body, hash, mayInterrupt);
+    }
+
+    /**
+     * Gets the number of tasks
+     *
+     * @return the number of scheduled tasks that have not completed yet
+     */
+    final int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    /** A part of the table with its own lock */
+    private static final class Segment {
+        private TrackedTask<?>[] table = new TrackedTask<?>[16];
+        private volatile int count;
+
+        final synchronized void add(TrackedTask<?> task) {
+            if (task.registered) {
+                return;
+            }
+            if (count >= table.length - (table.length >>> 2)) {
+                resize();
+            }
+            link(table, task);
+            task.registered = true;
+            count++;
+        }
+
+        final synchronized void remove(TrackedTask<?> task) {
+            if (!task.registered) {
+                return;
+            }
+            if (task.prevTask != null) {
+                task.prevTask.nextTask = task.nextTask;
+            }
+            else {
+                table[task.hash & (table.length - 1)] = task.nextTask;
+            }
+            if (task.nextTask != null) {
+                task.nextTask.prevTask = task.prevTask;
+            }
+            task.prevTask = task.nextTask = null;
+            task.registered = false;
+            count--;
+        }
+
+        final synchronized int cancel(Object body, int hash, boolean mayInterrupt) {
+            int cancelled = 0;
+            TrackedTask<?> task = table[hash & (table.length - 1)];
+            while (task != null) {
+                TrackedTask<?> next = task.nextTask; // Cancelling removes the task
+                if (task.body == body && task.cancel(mayInterrupt)) {
+                    cancelled++;
+                }
+                task = next;
+            }
+            return cancelled;
+        }
+
+        private void resize() {
+            TrackedTask<?>[] grown = new TrackedTask<?>[table.length << 1];
+            for (TrackedTask<?> task : table) {
+                while (task != null) {
+                    TrackedTask<?> next = task.nextTask;
+                    link(grown, task);
+                    task = next;
+                }
+            }
+            table = grown;
+        }
+
+        private static void link(TrackedTask<?>[] table, TrackedTask<?> task) {
+            int index = task.hash & (table.length - 1);
+            TrackedTask<?> head = table[index];
+            task.prevTask = null;
+            task.nextTask = head;
+            if (head != null) {
+                head.prevTask = task;
+            }
+            table[index] = task;
+        }
+    }
+}
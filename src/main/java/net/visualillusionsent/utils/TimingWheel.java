@@ -0,0 +1,290 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Hashed timing wheel for large numbers of delayed tasks
+ * <p/>
+ * Tasks are hashed by their deadline into a ring of buckets which one thread advances every tick,
+ * so scheduling and cancelling take constant time however many tasks are waiting. A task runs at most one tick
+ * after its deadline, never before it. Due tasks are handed to an {@link Executor}; the wheel thread never runs them.<br>
+ * The thread is started with the first task and stops once the wheel has been empty for a while.
+ *
+ * @author Jason (darkdiplomat)
+ * @since 1.4.3
+ */
+final class TimingWheel {
+
+    private static final long IDLE_NANOS = SECONDS.toNanos(60);
+
+    private final long tickNanos;
+    private final Timeout<?>[] buckets; // heads of the bucket lists, only touched by the wheel thread
+    private final int mask;
+    private final ConcurrentLinkedQueue<Timeout<?>> added = new ConcurrentLinkedQueue<Timeout<?>>();
+    private final ConcurrentLinkedQueue<Timeout<?>> cancelled = new ConcurrentLinkedQueue<Timeout<?>>();
+    private final AtomicInteger pending = new AtomicInteger(); // scheduled and neither run nor unlinked yet
+    private final Object lock = new Object();
+    private final long start = System.nanoTime();
+    private Thread thread; // guarded by lock
+
+    /**
+     * Creates a new timing wheel
+     *
+     * @param tickNanos
+     *         the resolution of the wheel in nanoseconds
+     * @param wheelSize
+     *         the number of buckets, rounded up to a power of two
+     */
+    TimingWheel(long tickNanos, int wheelSize) {
+        this.tickNanos = tickNanos;
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.buckets = new Timeout<?>[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Gets the resolution of the wheel
+     *
+     * @return the tick in nanoseconds
+     */
+    final long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * Schedules a {@link Runnable} task
+     *
+     * @param task
+     *         the task
+     * @param delay
+     *         the delay before execution
+     * @param timeUnit
+     *         the {@link TimeUnit} of the delay
+     * @param executor
+     *         the executor to run the task on once due
+     * @param group
+     *         the group of the task, or {@code null}
+     *
+     * @return the future of the task
+     */
+    final TrackedTask<?> schedule(Runnable task, long delay, TimeUnit timeUnit, Executor executor, TaskGroup group) {
+        return add(new Timeout<Object>(task, null, timeUnit.toNanos(delay), executor, group));
+    }
+
+    /**
+     * Schedules a {@link Callable} task
+     *
+     * @param task
+     *         the task
+     * @param delay
+     *         the delay before execution
+     * @param timeUnit
+     *         the {@link TimeUnit} of the delay
+     * @param executor
+     *         the executor to run the task on once due
+     * @param group
+     *         the group of the task, or {@code null}
+     *
+     * @return the future of the task
+     */
+    final <V> TrackedTask<V> schedule(Callable<V> task, long delay, TimeUnit timeUnit, Executor executor, TaskGroup group) {
+        return add(new Timeout<V>(task, timeUnit.toNanos(delay), executor, group));
+    }
+
+    private <V> Timeout<V> add(Timeout<V> timeout) {
+        boolean wake = pending.getAndIncrement() == 0;
+        added.add(timeout);
+        if (wake) {
+            synchronized (lock) {
+                if (thread == null) {
+                    thread = new Thread(new Runnable() {
+                        @Override
+                        public final void run() {
+                            turn();
+                        }
+                    }, "VIUtils-TimingWheel");
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+                else {
+                    lock.notifyAll();
+                }
+            }
+        }
+        return timeout;
+    }
+
+    /** The loop of the wheel thread */
+    private void turn() {
+        long tick = (System.nanoTime() - start) / tickNanos;
+        while (true) {
+            if (pending.get() == 0) {
+                synchronized (lock) {
+                    if (pending.get() == 0) {
+                        try {
+                            lock.wait(NANOSECONDS.toMillis(IDLE_NANOS));
+                        }
+                        catch (InterruptedException iex) {
+                            // Check again
+                        }
+                        if (pending.get() == 0) {
+                            thread = null;
+                            return;
+                        }
+                    }
+                }
+                tick = (System.nanoTime() - start) / tickNanos; // Nothing was waiting for the skipped ticks
+            }
+            long sleep = start + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleep > 0) {
+                try {
+                    NANOSECONDS.sleep(sleep);
+                }
+                catch (InterruptedException iex) {
+                    continue;
+                }
+            }
+            transfer(tick);
+            unlinkCancelled();
+            expire(tick);
+            tick++;
+        }
+    }
+
+    /** Moves new tasks into their buckets */
+    private void transfer(long tick) {
+        Timeout<?> timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.isDone()) {
+                pending.decrementAndGet(); // Cancelled before it was ever placed
+                continue;
+            }
+            long due = (timeout.deadline - start) / tickNanos;
+            timeout.rounds = (due - tick) >> Integer.numberOfTrailingZeros(buckets.length);
+            link(timeout, (int) (Math.max(due, tick) & mask));
+        }
+    }
+
+    private void unlinkCancelled() {
+        Timeout<?> timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket >= 0) {
+                unlink(timeout);
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    /** Hands the due tasks of the current bucket to their executors */
+    private void expire(long tick) {
+        Timeout<?> timeout = buckets[(int) (tick & mask)];
+        while (timeout != null) {
+            Timeout<?> next = timeout.next;
+            if (timeout.rounds <= 0) {
+                unlink(timeout);
+                pending.decrementAndGet();
+                timeout.expired = true;
+                try {
+                    timeout.executor.execute(timeout);
+                }
+                catch (RejectedExecutionException reex) {
+                    timeout.cancel(false); // The executor has been shut down
+                }
+            }
+            else {
+                timeout.rounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    private void link(Timeout<?> timeout, int bucket) {
+        Timeout<?> head = buckets[bucket];
+        timeout.bucket = bucket;
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[bucket] = timeout;
+    }
+
+    private void unlink(Timeout<?> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        }
+        else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = timeout.next = null;
+        timeout.bucket = -1;
+    }
+
+    /** A task waiting in the wheel */
+    private final class Timeout<V> extends TrackedTask<V> {
+        private final long deadline; // System.nanoTime
+        private final Executor executor;
+        private volatile boolean expired;
+        // Only touched by the wheel thread
+        private long rounds;
+        private int bucket = -1;
+        private Timeout<?> prev, next;
+
+        Timeout(Runnable runnable, V result, long delayNanos, Executor executor, TaskGroup group) {
+            super(runnable, result, group);
+            this.deadline = System.nanoTime() + delayNanos;
+            this.due = deadline;
+            this.executor = executor;
+        }
+
+        Timeout(Callable<V> callable, long delayNanos, Executor executor, TaskGroup group) {
+            super(callable, group);
+            this.deadline = System.nanoTime() + delayNanos;
+            this.due = deadline;
+            this.executor = executor;
+        }
+
+        @Override
+        protected final void done() {
+            if (!expired) { // Cancelled while waiting, the wheel thread unlinks it
+                cancelled.add(this);
+            }
+            super.done();
+        }
+
+        @Override
+        public final long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.logging.Logger;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A task scheduled by the {@link TaskManager} which cleans up after itself
+ * <p/>
+ * Once it completes, fails or is cancelled the task removes itself from the TaskManager and reports its exception, if any.
+ * Nothing has to scan the scheduled tasks for finished ones.<br>
+ * Every scheduling is its own task, identified by the task object itself; the same Runnable may be scheduled any number of times.
+ *
+ * @author Jason (darkdiplomat)
+ * @since 1.4.3
+ */
+abstract class TrackedTask<V> extends FutureTask<V> implements ScheduledFuture<V> {
+
+    /* The Runnable/Callable task */
+    final Object body;
+    final int hash;
+    /* The TaskGroup or null */
+    final TaskGroup group;
+    // Links of the TaskRegistry, guarded by its segment
+    boolean registered;
+    TrackedTask<?> prevTask, nextTask;
+    // Links of the TaskGroup, guarded by the group
+    boolean grouped;
+    TrackedTask<?> prevInGroup, nextInGroup;
+    /* When the task was due in System.nanoTime, 0 if unknown; set before it is handed to its thread */
+    long due;
+    /* Whether the task threw, set by done() on the thread that ran it */
+    private boolean failed;
+
+    TrackedTask(Runnable runnable, V result, TaskGroup group) {
+        super(runnable, result);
+        this.body = runnable;
+        this.hash = TaskRegistry.hash(runnable);
+        this.group = group;
+    }
+
+    TrackedTask(Callable<V> callable, TaskGroup group) {
+        super(callable);
+        this.body = callable;
+        this.hash = TaskRegistry.hash(callable);
+        this.group = group;
+    }
+
+    /** Runs the task, timing it while metrics are enabled */
+    @Override
+    public final void run() {
+        TaskMetricsRecorder recorder = TaskManager.metrics();
+        if (recorder == null || isDone()) {
+            runTask();
+            return;
+        }
+        long start = System.nanoTime();
+        recorder.started(due == 0 ? -1 : Math.max(0, start - due));
+        try {
+            runTask();
+        }
+        finally {
+            // A periodic task that is not done yet ran fine; a done one ran fine unless it failed or was cancelled
+            recorder.finished(this, System.nanoTime() - start, !isDone() || !(failed || isCancelled()));
+        }
+    }
+
+    /** Runs the body of the task */
+    void runTask() {
+        super.run();
+    }
+
+    @Override
+    protected void done() {
+        TaskManager.untrack(this);
+        TaskMetricsRecorder recorder = TaskManager.metrics();
+        if (isCancelled()) {
+            if (recorder != null) {
+                recorder.cancelled(this);
+            }
+            return; // Don't care if it was cancelled
+        }
+        try {
+            get(); // Test for execution exceptions, does not block once done
+        }
+        catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException eex) {
+            failed = true;
+            if (recorder != null) {
+                recorder.failed(this);
+            }
+            printError(eex.getCause()); // Print the proper Task name rather than the wrapper's name
+        }
+    }
+
+    /**
+     * Prints out the error that was caused
+     *
+     * @param thrown
+     *         the {@link Throwable} thrown by the task
+     */
+    private void printError(Throwable thrown) {
+        Logger.getLogger(Logger.GLOBAL_LOGGER_NAME).severe("[VIUtils] Unhandled Exception thrown from Task: " + body.toString() + ". Check the viuitlslogs for more details");
+        UtilsLogger.severe("Exception in Task: " + body.toString(), thrown);
+    }
+
+    @Override
+    public final int compareTo(Delayed other) {
+        if (other == this) {
+            return 0;
+        }
+        long diff = getDelay(NANOSECONDS) - other.getDelay(NANOSECONDS);
+        return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+    }
+}
@@ -17,18 +17,21 @@
  */
 package net.visualillusionsent.utils;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipEntry;
 
 import static net.visualillusionsent.utils.Verify.notEmpty;
@@ -37,6 +40,10 @@ import static net.visualillusionsent.utils.Verify.notNull;
 
 /**
  * An Unmodifiable Properties File implementation
+ * <p/>
+ * Everything read from the file is held in one immutable snapshot that is swapped in whole by {@link #reload()},
+ * so readers on other threads never lock and never see a mix of the old and new file.
+ * The inherited maps and lists are not used.
  *
  * @author Jason (darkdiplomat)
  * @version 1.3
@@ -45,6 +52,41 @@ import static net.visualillusionsent.utils.Verify.notNull;
 public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
     /* 1.3 @ VIUtils 1.4.1 */
     private static final float classVersion = 1.3F;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /** A number array with the delimiter it was split at, callers are given copies of it */
+    private static final class CachedArray {
+        private final String delimiter;
+        private final Object array; // int[], long[] or double[]
+
+        private CachedArray(String delimiter, Object array) {
+            this.delimiter = delimiter;
+            this.array = array;
+        }
+    }
+
+    /** Parsed state of the file, published as a whole */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(Collections.<String, String>emptyMap(), Collections.<String, String>emptyMap(),
+                Collections.<String, List<String>>emptyMap(), Collections.<String>emptyList(), Collections.<String>emptyList());
+        private final Map<String, String> props;
+        private final Map<String, String> inlineCom;
+        private final Map<String, List<String>> comments;
+        private final List<String> header;
+        private final List<String> footer;
+        // Parsed values of this snapshot only, so a reload drops them with the values they came from
+        private final ConcurrentHashMap<String, Number> numberCache = new ConcurrentHashMap<String, Number>();
+        private final ConcurrentHashMap<String, Boolean> booleanCache = new ConcurrentHashMap<String, Boolean>();
+        private final ConcurrentHashMap<String, CachedArray> arrayCache = new ConcurrentHashMap<String, CachedArray>();
+
+        private Snapshot(Map<String, String> props, Map<String, String> inlineCom, Map<String, List<String>> comments, List<String> header, List<String> footer) {
+            this.props = props;
+            this.inlineCom = inlineCom;
+            this.comments = comments;
+            this.header = header;
+            this.footer = footer;
+        }
+    }
 
     /**
      * {@inheritDoc}
@@ -53,14 +95,19 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      *         if there was an error with reading the properties file
      */
     public UnmodifiablePropertiesFile(String filePath) {
-        super(filePath);
+        this(filePath, new LoadOption[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if there was an error with reading the properties file
+     */
+    public UnmodifiablePropertiesFile(String filePath, LoadOption... options) {
+        super(filePath, options);
         if (propsFile.exists()) {
-            try {
-                load(new FileInputStream(propsFile));
-            }
-            catch (FileNotFoundException e) {
-                throw new UtilityException("file.err.ioe", filePath);
-            }
+            loadFile();
         }
     }
 
@@ -71,14 +118,19 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      *         if there was an error with reading the properties file
      */
     public UnmodifiablePropertiesFile(File file) {
-        super(file);
+        this(file, new LoadOption[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if there was an error with reading the properties file
+     */
+    public UnmodifiablePropertiesFile(File file, LoadOption... options) {
+        super(file, options);
         if (propsFile.exists()) {
-            try {
-                load(new FileInputStream(propsFile));
-            }
-            catch (FileNotFoundException e) {
-                throw new UtilityException("file.err.ioe", filePath);
-            }
+            loadFile();
         }
     }
 
@@ -89,7 +141,17 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      *         if there was an error with reading the properties file
      */
     public UnmodifiablePropertiesFile(String zipPath, String entry) {
-        super(zipPath, entry);
+        this(zipPath, entry, new LoadOption[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PropertiesFileException
+     *         if there was an error with reading the properties file
+     */
+    public UnmodifiablePropertiesFile(String zipPath, String entry, LoadOption... options) {
+        super(zipPath, entry, options);
         ZipEntry ent = zip.getEntry(entry);
         try {
             load(zip.getInputStream(ent));
@@ -107,91 +169,145 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     protected final void load(InputStream instream) {
-        HashMap<String, String> tempProps = new HashMap<String, String>();
-        HashMap<String, String> tempInLine = new HashMap<String, String>();
-        HashMap<String, List<String>> tempCom = new HashMap<String, List<String>>();
-        List<String> tempHead = new LinkedList<String>();
-        List<String> tempFoot = new LinkedList<String>();
         UtilityException uex = null;
-        BufferedReader in = null;
+        Reader in = null;
         try {
-            in = new BufferedReader(new InputStreamReader(instream, "UTF-8"));
-            String inLine;
-            LinkedList<String> inComments = new LinkedList<String>();
-            while ((inLine = in.readLine()) != null) {
-                if (inLine.startsWith(";#")) {
-                    tempHead.add(inLine);
-                }
-                else if (inLine.startsWith("#;")) {
-                    tempFoot.add(inLine);
-                }
-                else if (inLine.startsWith(";") || inLine.startsWith("#")) {
-                    inComments.add(inLine);
-                }
-                else {
-                    String[] propsLine = null;
-                    try {
-                        propsLine = inLine.split("=");
-                        String key = propsLine[0].trim();
-                        String value = propsLine[1];
-                        if (value.contains("#!")) {
-                            String inlinec = value.split("#!")[1]; //Don't trim the comment
-                            tempInLine.put(key, inlinec);
-                            value = value.split("#!")[0];
-                        }
-                        tempProps.put(key.trim(), value.replace("\\#\\!", "#!").trim()); //remove escape sequence
-                    }
-                    catch (ArrayIndexOutOfBoundsException aioobe) {
-                        //Empty value?
-                        if (inLine.contains("=")) {
-                            tempProps.put(propsLine[0], "");
-                        }
-                        //Incomplete property, drop reference
-                        else {
-                            inComments.clear();
-                            continue;
-                        }
-                    }
-                    if (!inComments.isEmpty()) {
-                        LinkedList<String> temp = new LinkedList<String>(inComments);
-                        Collections.copy(temp, inComments);
-                        tempCom.put(propsLine[0], Collections.unmodifiableList(new LinkedList<String>(temp)));
-                        inComments.clear();
-                    }
-                }
+            if (loadOptions.contains(LoadOption.LAZY)) {
+                index(readFully(instream));
+                return;
             }
+            in = new InputStreamReader(instream, "UTF-8");
+            scan(new PropertiesScanner(in));
         }
         catch (IOException ioe) {
             UtilsLogger.severe(String.format("An IOException occurred in File: '%s'", filePath), ioe);
             uex = new PropertiesFileException("file.err.ioe", filePath);
         }
         finally {
-            if (in != null) {
-                try {
+            try {
+                if (in != null) {
                     in.close();
                 }
-                catch (IOException e) {
-                    //do nothing
+                else {
+                    instream.close();
                 }
             }
+            catch (IOException e) {
+                //do nothing
+            }
             if (uex != null) {
                 throw uex;
             }
         }
-        this.props = Collections.unmodifiableMap(tempProps);
-        this.inlineCom = Collections.unmodifiableMap(tempInLine);
-        this.comments = Collections.unmodifiableMap(tempCom);
-        this.header = Collections.unmodifiableList(tempHead);
-        this.footer = Collections.unmodifiableList(tempFoot);
-        this.booleanCache = new HashMap<String, Boolean>();
-        this.numberCache = new HashMap<String, Number>();
+    }
+
+    /**
+     * Loads the backing file, memory mapped if {@link LoadOption#MEMORY_MAPPED} was specified
+     *
+     * @throws PropertiesFileException
+     *         if there was an error with reading the properties file
+     */
+    private void loadFile() {
+        if (loadOptions.contains(LoadOption.MEMORY_MAPPED)) {
+            try {
+                if (loadOptions.contains(LoadOption.LAZY)) {
+                    // Copied out so the index never reads a mapping the file could be truncated under
+                    ByteBuffer mapped = mapFile();
+                    byte[] data = new byte[mapped.remaining()];
+                    mapped.get(data);
+                    index(data);
+                }
+                else {
+                    scan(new PropertiesScanner(mapFile()));
+                }
+            }
+            catch (IOException ioe) {
+                UtilsLogger.severe(String.format("An IOException occurred in File: '%s'", filePath), ioe);
+                throw new PropertiesFileException("file.err.ioe", filePath);
+            }
+        }
+        else {
+            try {
+                load(new FileInputStream(propsFile));
+            }
+            catch (FileNotFoundException e) {
+                throw new UtilityException("file.err.ioe", filePath);
+            }
+        }
+    }
+
+    private void index(byte[] data) {
+        PropertiesIndex index = new PropertiesIndex(data, loadOptions.contains(LoadOption.DEDUPLICATE));
+        this.snapshot = new Snapshot(index.values(), index.inlineComments(), index.comments(),
+                Collections.unmodifiableList(index.header()), Collections.unmodifiableList(index.footer()));
+    }
+
+    private static byte[] readFully(InputStream instream) throws IOException {
+        byte[] data = new byte[Math.max(instream.available(), 8192)];
+        int length = 0, read;
+        while ((read = instream.read(data, length, data.length - length)) >= 0) {
+            length += read;
+            if (length == data.length) {
+                data = Arrays.copyOf(data, data.length << 1);
+            }
+        }
+        return length == data.length ? data : Arrays.copyOf(data, length);
+    }
+
+    private void scan(PropertiesScanner scanner) throws IOException {
+        final HashMap<String, String> tempProps = new HashMap<String, String>();
+        final HashMap<String, String> tempInLine = new HashMap<String, String>();
+        final HashMap<String, List<String>> tempCom = new HashMap<String, List<String>>();
+        final List<String> tempHead = new LinkedList<String>();
+        final List<String> tempFoot = new LinkedList<String>();
+        final boolean pooled = loadOptions.contains(LoadOption.DEDUPLICATE);
+        scanner.scan(new PropertiesScanner.Handler() {
+            private final LinkedList<String> inComments = new LinkedList<String>();
+
+            @Override
+            public final void header(String line) {
+                tempHead.add(line);
+            }
+
+            @Override
+            public final void footer(String line) {
+                tempFoot.add(line);
+            }
+
+            @Override
+            public final void comment(String line) {
+                inComments.add(line);
+            }
+
+            @Override
+            public final void property(String key, String value, String inlineComment) {
+                if (pooled) {
+                    key = StringPool.pooled(key);
+                    value = StringPool.pooledValue(value);
+                }
+                if (inlineComment != null) {
+                    tempInLine.put(key, inlineComment);
+                }
+                tempProps.put(key, value);
+                if (!inComments.isEmpty()) {
+                    tempCom.put(key, Collections.unmodifiableList(new LinkedList<String>(inComments)));
+                    inComments.clear();
+                }
+            }
+
+            @Override
+            public final void invalid() {
+                //Incomplete property, drop reference
+                inComments.clear();
+            }
+        });
+        this.snapshot = new Snapshot(Collections.unmodifiableMap(tempProps), Collections.unmodifiableMap(tempInLine),
+                Collections.unmodifiableMap(tempCom), Collections.unmodifiableList(tempHead), Collections.unmodifiableList(tempFoot));
     }
 
     /** {@inheritDoc} */
     @Override
     public final void reload() {
-        //props.clear();  UNSUPPORTED
-        //comments.clear(); UNSUPPORTED
         if (zip != null) {
             ZipEntry ent = zip.getEntry(filePath);
             if (ent == null) {
@@ -205,13 +321,10 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
             }
         }
         else {
-            try {
-                load(new FileInputStream(propsFile));
-            }
-            catch (FileNotFoundException e) {
-                throw new PropertiesFileException("file.err.ioe", filePath);
-            }
+            loadFile();
         }
+        keysChanged();
+        valuesChanged();
     }
 
     /**
@@ -260,7 +373,7 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
         notNull(key, "String key");
         notEmpty(key, "String key");
 
-        return props.containsKey(key);
+        return snapshot.props.containsKey(key);
     }
 
     /**
@@ -318,10 +431,25 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final String getString(String key) {
-        if (containsKey(key)) {
-            return props.get(key);
+        return value(snapshot, key);
+    }
+
+    /** Gets the cached array of a key if it was split at the same delimiter, {@code null} otherwise */
+    private static Object array(Snapshot snap, String key, String delimiter) {
+        CachedArray cached = key != null ? snap.arrayCache.get(key) : null;
+        return cached != null && cached.delimiter.equals(delimiter) ? cached.array : null;
+    }
+
+    /** Gets a value from one snapshot, so values and caches are never mixed across a reload */
+    private static String value(Snapshot snap, String key) {
+        notNull(key, "String key");
+        notEmpty(key, "String key");
+
+        String value = snap.props.get(key);
+        if (value == null) {
+            throw new UnknownPropertyException("key.missing", key);
         }
-        throw new UnknownPropertyException("key.missing", key);
+        return value;
     }
 
     /**
@@ -338,10 +466,8 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
         notNull(def, "String def");
         notEmpty(key, "String key");
 
-        if (containsKey(key)) {
-            return props.get(key);
-        }
-        return def;
+        String value = snapshot.props.get(key);
+        return value != null ? value : def;
     }
 
     /**
@@ -491,14 +617,15 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final byte getByte(String key) {
-        notNull(key, "String key");
-
-        if (numberCache.containsKey(key)) { // Caching check
-            return numberCache.get(key).byteValue();
+        Snapshot snap = snapshot;
+        String raw = value(snap, key);
+        Number cached = snap.numberCache.get(key);
+        if (cached != null) { // Caching check
+            return cached.byteValue();
         }
         try {
-            byte value = Byte.decode(getString(key)); // decode
-            numberCache.put(key, value); // Cache
+            byte value = Byte.decode(raw); // decode
+            snap.numberCache.put(key, value); // Cache
             return value;
         }
         catch (NumberFormatException nfe) {
@@ -683,14 +810,15 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final short getShort(String key) {
-        notNull(key, "String key");
-
-        if (numberCache.containsKey(key)) {
-            return numberCache.get(key).shortValue();
+        Snapshot snap = snapshot;
+        String raw = value(snap, key);
+        Number cached = snap.numberCache.get(key);
+        if (cached != null) {
+            return cached.shortValue();
         }
         try {
-            short value = Short.decode(getString(key));
-            numberCache.put(key, value);
+            short value = Short.decode(raw);
+            snap.numberCache.put(key, value);
             return value;
         }
         catch (NumberFormatException nfe) {
@@ -874,14 +1002,15 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final int getInt(String key) {
-        notNull(key, "String key");
-
-        if (numberCache.containsKey(key)) {
-            return numberCache.get(key).intValue();
+        Snapshot snap = snapshot;
+        String raw = value(snap, key);
+        Number cached = snap.numberCache.get(key);
+        if (cached != null) {
+            return cached.intValue();
         }
         try {
-            int value = Integer.decode(getString(key));
-            numberCache.put(key, value);
+            int value = Integer.decode(raw);
+            snap.numberCache.put(key, value);
             return value;
         }
         catch (NumberFormatException nfe) {
@@ -1005,7 +1134,14 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final int[] getIntArray(String key, String delimiter) {
-        return StringUtils.stringToIntArray(getString(key), delimiter);
+        Snapshot snap = snapshot;
+        Object cached = array(snap, key, delimiter);
+        if (cached instanceof int[]) {
+            return ((int[]) cached).clone(); // Callers may change their copy
+        }
+        int[] value = StringUtils.stringToIntArray(value(snap, key), delimiter);
+        snap.arrayCache.put(key, new CachedArray(delimiter, value));
+        return value.clone();
     }
 
     /**
@@ -1020,7 +1156,7 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
     public final int[] getIntArray(String key, String delimiter, int[] def) {
         if (containsKey(key)) {
             try {
-                return StringUtils.stringToIntArray(getString(key), delimiter);
+                return getIntArray(key, delimiter);
             }
             catch (NumberFormatException nfex) {
                 // Continue with default
@@ -1065,14 +1201,15 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final long getLong(String key) {
-        notNull(key, "String key");
-
-        if (numberCache.containsKey(key)) {
-            return numberCache.get(key).longValue();
+        Snapshot snap = snapshot;
+        String raw = value(snap, key);
+        Number cached = snap.numberCache.get(key);
+        if (cached != null) {
+            return cached.longValue();
         }
         try {
-            long value = Long.decode(getString(key));
-            numberCache.put(key, value);
+            long value = Long.decode(raw);
+            snap.numberCache.put(key, value);
             return value;
         }
         catch (NumberFormatException nfe) {
@@ -1196,7 +1333,14 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final long[] getLongArray(String key, String delimiter) {
-        return StringUtils.stringToLongArray(getString(key), delimiter);
+        Snapshot snap = snapshot;
+        Object cached = array(snap, key, delimiter);
+        if (cached instanceof long[]) {
+            return ((long[]) cached).clone(); // Callers may change their copy
+        }
+        long[] value = StringUtils.stringToLongArray(value(snap, key), delimiter);
+        snap.arrayCache.put(key, new CachedArray(delimiter, value));
+        return value.clone();
     }
 
     /**
@@ -1211,7 +1355,7 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
     public final long[] getLongArray(String key, String delimiter, long[] def) {
         if (containsKey(key)) {
             try {
-                return StringUtils.stringToLongArray(getString(key), delimiter);
+                return getLongArray(key, delimiter);
             }
             catch (NumberFormatException nfex) {
                 // Continue with default
@@ -1256,13 +1400,15 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final float getFloat(String key) {
-        notNull(key, "String key");
-        if (numberCache.containsKey(key)) {
-            return numberCache.get(key).floatValue();
+        Snapshot snap = snapshot;
+        String raw = value(snap, key);
+        Number cached = snap.numberCache.get(key);
+        if (cached != null) {
+            return cached.floatValue();
         }
         try {
-            float value = Float.parseFloat(getString(key));
-            numberCache.put(key, value);
+            float value = Float.parseFloat(raw);
+            snap.numberCache.put(key, value);
             return value;
         }
         catch (NumberFormatException nfe) {
@@ -1446,13 +1592,15 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final double getDouble(String key) {
-        notNull(key, "String key");
-        if (numberCache.containsKey(key)) {
-            return numberCache.get(key).doubleValue();
+        Snapshot snap = snapshot;
+        String raw = value(snap, key);
+        Number cached = snap.numberCache.get(key);
+        if (cached != null) {
+            return cached.doubleValue();
         }
         try {
-            double value = Double.parseDouble(getString(key));
-            numberCache.put(key, value);
+            double value = Double.parseDouble(raw);
+            snap.numberCache.put(key, value);
             return value;
         }
         catch (NumberFormatException nfe) {
@@ -1576,7 +1724,14 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final double[] getDoubleArray(String key, String delimiter) {
-        return StringUtils.stringToDoubleArray(getString(key), delimiter);
+        Snapshot snap = snapshot;
+        Object cached = array(snap, key, delimiter);
+        if (cached instanceof double[]) {
+            return ((double[]) cached).clone(); // Callers may change their copy
+        }
+        double[] value = StringUtils.stringToDoubleArray(value(snap, key), delimiter);
+        snap.arrayCache.put(key, new CachedArray(delimiter, value));
+        return value.clone();
     }
 
     /**
@@ -1591,7 +1746,7 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
     public final double[] getDoubleArray(String key, String delimiter, double[] def) {
         if (containsKey(key)) {
             try {
-                return StringUtils.stringToDoubleArray(getString(key), delimiter);
+                return getDoubleArray(key, delimiter);
             }
             catch (NumberFormatException nfex) {
                 // Continue with default
@@ -1634,11 +1789,14 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      */
     @Override
     public final boolean getBoolean(String key) {
-        if (booleanCache.containsKey(key)) {
-            return booleanCache.get(key);
+        Snapshot snap = snapshot;
+        String raw = value(snap, key);
+        Boolean cached = snap.booleanCache.get(key);
+        if (cached != null) {
+            return cached;
         }
-        boolean value = BooleanUtils.parseBoolean(getString(key));
-        booleanCache.put(key, value);
+        boolean value = BooleanUtils.parseBoolean(raw);
+        snap.booleanCache.put(key, value);
         return value;
     }
 
@@ -1843,7 +2001,7 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      * @return unmodifiable properties map
      */
     public final Map<String, String> getPropertiesMap() {
-        return Collections.unmodifiableMap(props);
+        return Collections.unmodifiableMap(snapshot.props);
     }
 
     /**
@@ -1877,8 +2035,9 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      * @return comments if found, {@code null} if no comments found
      */
     public final String[] getComments(String key) {
-        if (comments.containsKey(key)) {
-            return comments.get(key).toArray(new String[comments.get(key).size()]);
+        List<String> comments = snapshot.comments.get(key);
+        if (comments != null) {
+            return comments.toArray(new String[comments.size()]);
         }
         return null;
     }
@@ -1892,10 +2051,7 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      * @return comments if found; {@code null} if no comments found
      */
     public final List<String> getCommentsAsList(String key) {
-        if (comments.containsKey(key)) {
-            return comments.get(key);
-        }
-        return null;
+        return snapshot.comments.get(key);
     }
 
     /**
@@ -1948,9 +2104,7 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      * @return the header lines
      */
     public final LinkedList<String> getHeaderLines() {
-        LinkedList<String> toRet = new LinkedList<String>(header);
-        Collections.copy(header, toRet);
-        return toRet;
+        return new LinkedList<String>(snapshot.header);
     }
 
     /**
@@ -1981,9 +2135,7 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      * @return the header lines
      */
     public final LinkedList<String> getFooterLines() {
-        LinkedList<String> toRet = new LinkedList<String>(footer);
-        Collections.copy(footer, toRet);
-        return toRet;
+        return new LinkedList<String>(snapshot.footer);
     }
 
     /**
@@ -2006,7 +2158,7 @@ public final class UnmodifiablePropertiesFile extends AbstractPropertiesFile {
      * @return the inline comment or {@code null} if no comment
      */
     public final String getInlineComment(String key) {
-        return inlineCom.get(key);
+        return snapshot.inlineCom.get(key);
     }
 
     /**
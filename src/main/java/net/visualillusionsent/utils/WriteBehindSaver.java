@@ -0,0 +1,111 @@
+/*
+ * This file is part of VIUtils.
+ *
+ * Copyright © 2012-2015 Visual Illusions Entertainment
+ *
+ * VIUtils is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this library.
+ * If not, see http://www.gnu.org/licenses/lgpl.html.
+ */
+package net.visualillusionsent.utils;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Coalesces save requests into one background write
+ * <p/>
+ * Each request pushes the write back until no request has been made for the quiet period,
+ * then the writer runs once on the {@link TaskManager} pool. Pending writes are flushed on JVM shutdown.
+ *
+ * @author Jason (darkdiplomat)
+ * @since 1.4.3
+ */
+final class WriteBehindSaver implements Runnable {
+
+    /** Savers with a write waiting, flushed by the shutdown hook */
+    private static final Set<WriteBehindSaver> pending = Collections.newSetFromMap(new ConcurrentHashMap<WriteBehindSaver, Boolean>());
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread("VIUtils-WriteBehind") {
+            @Override
+            public void run() {
+                for (WriteBehindSaver saver : pending) {
+                    saver.flush();
+                }
+            }
+        });
+    }
+
+    private final Runnable writer;
+    private final long quietNanos;
+    private volatile long requested; // System.nanoTime of the last request
+    private boolean scheduled; // guarded by this
+
+    /**
+     * Creates a new saver
+     *
+     * @param writer
+     *         performs the actual write
+     * @param quietNanos
+     *         how long no requests must be made before writing, in nanoseconds
+     */
+    WriteBehindSaver(Runnable writer, long quietNanos) {
+        this.writer = writer;
+        this.quietNanos = quietNanos;
+    }
+
+    /** Requests a write, pushing back a pending write to the end of a new quiet period */
+    final void request() {
+        requested = System.nanoTime();
+        synchronized (this) {
+            if (!scheduled) {
+                scheduled = true;
+                pending.add(this);
+                TaskManager.scheduleDelayedTask(this, quietNanos, NANOSECONDS);
+            }
+        }
+    }
+
+    /** Writes now if a write is pending */
+    final void flush() {
+        synchronized (this) {
+            if (!scheduled) {
+                return;
+            }
+            scheduled = false;
+            pending.remove(this);
+        }
+        writer.run();
+    }
+
+    /** Checks whether a write is waiting */
+    final synchronized boolean isPending() {
+        return scheduled;
+    }
+
+    @Override
+    public final void run() {
+        long wait = requested + quietNanos - System.nanoTime();
+        if (wait > 0) {
+            synchronized (this) {
+                if (scheduled) { // Not flushed in the meantime
+                    TaskManager.scheduleDelayedTask(this, wait, NANOSECONDS);
+                }
+            }
+            return;
+        }
+        flush();
+    }
+}
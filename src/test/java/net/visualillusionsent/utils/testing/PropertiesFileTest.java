@@ -1,9 +1,29 @@
 package net.visualillusionsent.utils.testing;
 
+import net.visualillusionsent.utils.AbstractPropertiesFile;
+import net.visualillusionsent.utils.ConcurrentPropertiesFile;
 import net.visualillusionsent.utils.PropertiesFile;
+import net.visualillusionsent.utils.PropertiesFileWatcher;
+import net.visualillusionsent.utils.PropertiesReader;
+import net.visualillusionsent.utils.PropertiesSubset;
+import net.visualillusionsent.utils.PropertyCodecs;
+import net.visualillusionsent.utils.PropertyHandle;
+import net.visualillusionsent.utils.StringUtils;
+import net.visualillusionsent.utils.UnmodifiablePropertiesFile;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
 public class PropertiesFileTest {
 
     private static final PropertiesFile cfg = new PropertiesFile("src/test/resources/test.cfg");
@@ -30,6 +50,35 @@ public class PropertiesFileTest {
         Assert.assertArrayEquals(new long[]{ 123456789123456789L, 201307110430L, 197001010000L }, cfg.getLongArray("long_array_test"));
     }
 
+    @Test
+    public void cachedArrayTest() throws IOException {
+        File file = File.createTempFile("viutils", ".cfg");
+        file.deleteOnExit();
+        PropertiesFile arrays = new PropertiesFile(file);
+        arrays.setString("ids", " 1, 0x1F ,#10, 010,-2147483648,,");
+        int[] ids = arrays.getIntArray("ids");
+        Assert.assertArrayEquals(new int[]{ 1, 31, 16, 8, Integer.MIN_VALUE }, ids);
+        ids[0] = 99;
+        Assert.assertEquals(1, arrays.getIntArray("ids")[0]); // copies of the cached array
+        Assert.assertArrayEquals(new long[]{ 1, 31, 16, 8, Integer.MIN_VALUE }, arrays.getLongArray("ids"));
+        arrays.setLongArray("ids", ";", new long[]{ Long.MAX_VALUE, -5 });
+        Assert.assertArrayEquals(new long[]{ Long.MAX_VALUE, -5 }, arrays.getLongArray("ids", ";"));
+        Assert.assertArrayEquals(new int[]{ 3 }, arrays.getIntArray("ids", new int[]{ 3 })); // out of range
+        arrays.setString("ids", "1.5|2.25");
+        Assert.assertArrayEquals(new double[]{ 1.5, 2.25 }, arrays.getDoubleArray("ids", "\\|"), 0); // regex delimiter
+        for (String bad : new String[]{ "", "1,,2", "0x", "-", "08", "2147483648", "1 2" }) {
+            arrays.setString("bad", bad);
+            try {
+                arrays.getIntArray("bad");
+                Assert.fail(bad);
+            }
+            catch (NumberFormatException nfex) {
+                // Expected
+            }
+        }
+        Assert.assertArrayEquals(new int[0], StringUtils.stringToIntArray(",,"));
+    }
+
     @Test
     public void stringArrayTest() {
         Assert.assertArrayEquals(new String[]{ "string1", "string2", "string3" }, cfg.getStringArray("string_array_test"));
@@ -41,6 +90,431 @@ public class PropertiesFileTest {
         Assert.assertEquals(" Comment", cfg.getInlineComment("inLineComment"));
     }
 
+    @Test
+    public void equalsInValueTest() {
+        Assert.assertEquals("jdbc:mysql://localhost/db?user=name", cfg.getString("equals_value_test"));
+        Assert.assertArrayEquals(new String[]{ ";Comment for the equals test" }, cfg.getComments("equals_value_test"));
+    }
+
+    @Test
+    public void escapedInlineCommentTest() {
+        Assert.assertEquals("value #! not a comment", cfg.getString("escaped_inline_test"));
+        Assert.assertEquals(" real comment", cfg.getInlineComment("escaped_inline_test"));
+    }
+
+    @Test
+    public void typedCacheTest() throws IOException {
+        File file = File.createTempFile("viutils", ".cfg");
+        file.deleteOnExit();
+        PropertiesFile typed = new PropertiesFile(file);
+        typed.setInt("number", 300);
+        Assert.assertEquals(300L, typed.getLong("number"));
+        Assert.assertEquals(300D, typed.getDouble("number"), 0);
+        Assert.assertEquals((byte) 300, typed.getByte("number")); // narrowed like Number.byteValue
+        typed.setFloat("number", 1.5F);
+        Assert.assertEquals(1, typed.getInt("number"));
+        Assert.assertEquals(1.5F, typed.getFloat("number"), 0);
+        typed.setString("number", "7");
+        Assert.assertEquals(7, typed.getInt("number"));
+        typed.setIntArray("number", new int[]{ 8, 9 });
+        Assert.assertEquals(8, typed.getInt("number", 8)); // not a single number anymore
+        typed.setString("flag", "true");
+        Assert.assertTrue(typed.getBoolean("flag"));
+        typed.setBoolean("flag", false);
+        Assert.assertFalse(typed.getBoolean("flag"));
+    }
+
+    @Test
+    public void handleTest() throws IOException {
+        File file = File.createTempFile("viutils", ".cfg");
+        file.deleteOnExit();
+        PropertiesFile writer = new PropertiesFile(file);
+        PropertyHandle.IntProperty players = writer.intHandle("max-players", 20);
+        Assert.assertEquals(20, players.get()); // missing
+        writer.setInt("max-players", 40);
+        Assert.assertEquals(40, players.get());
+        writer.setString("max-players", "many");
+        Assert.assertEquals(20, players.get()); // not a number
+        writer.setString("max-players", "50");
+        writer.save();
+        writer.removeKey("max-players");
+        Assert.assertEquals(20, players.get());
+
+        UnmodifiablePropertiesFile reader = new UnmodifiablePropertiesFile(file);
+        PropertyHandle.IntProperty read = reader.intHandle("max-players", 20);
+        PropertyHandle.BooleanProperty flag = reader.booleanHandle("flag", false);
+        Assert.assertEquals(50, read.get());
+        writer.setInt("max-players", 60);
+        writer.setBoolean("flag", true);
+        writer.save();
+        reader.reload();
+        Assert.assertEquals(60, read.get());
+        Assert.assertTrue(flag.get());
+        reader.releaseHandle(read);
+        writer.setInt("max-players", 70);
+        writer.save();
+        reader.reload();
+        Assert.assertEquals(60, read.get()); // released
+    }
+
+    @Test
+    public void editTest() throws IOException {
+        File file = File.createTempFile("viutils", ".cfg");
+        file.deleteOnExit();
+        PropertiesFile edited = new PropertiesFile(file);
+        edited.setString("removed", "value");
+        edited.setInt("same", 5);
+        edited.save();
+        PropertyHandle.IntProperty count = edited.intHandle("count", -1);
+
+        PropertiesFile.Edit edit = edited.edit()
+                .setInt("count", 1)
+                .setString("name", "first", "A comment")
+                .setDouble("ratio", 0.5)
+                .setBoolean("flag", true)
+                .setInt("same", 5)
+                .removeKey("removed")
+                .setInt("count", 2); // last change wins
+        Assert.assertFalse(edited.containsKey("count")); // nothing applied yet
+        Assert.assertEquals(-1, count.get());
+        Assert.assertEquals(5, edit.commit()); // same is unchanged
+        Assert.assertEquals(2, count.get());
+        Assert.assertEquals(2, edited.getInt("count"));
+        Assert.assertEquals(0.5, edited.getDouble("ratio"), 0);
+        Assert.assertTrue(edited.getBoolean("flag"));
+        Assert.assertFalse(edited.containsKey("removed"));
+        Assert.assertArrayEquals(new String[]{ ";A comment" }, edited.getComments("name"));
+
+        edit.setString("name", "second").commitAndSave();
+        PropertiesFile loaded = new PropertiesFile(file);
+        Assert.assertEquals(edited.getPropertiesMap(), loaded.getPropertiesMap());
+        Assert.assertEquals("second", loaded.getString("name"));
+        Assert.assertEquals(0, edit.commit());
+    }
+
+    @Test
+    public void subsetTest() throws IOException {
+        File file = File.createTempFile("viutils", ".cfg");
+        file.deleteOnExit();
+        PropertiesFile config = new PropertiesFile(file);
+        config.setInt("db.pool.size", 10);
+        config.setInt("db.pool.timeout", 30);
+        config.setString("db.url", "jdbc:mysql://localhost/db");
+        config.setBoolean("db.poolActive", true);
+        config.setString("web.port", "80");
+
+        PropertiesSubset pool = config.subset("db.pool.");
+        Assert.assertEquals(Arrays.asList("db.pool.size", "db.pool.timeout"), pool.getKeys());
+        Assert.assertEquals(Arrays.asList("size", "timeout"), pool.getNames());
+        Assert.assertEquals(10, pool.getInt("size"));
+        Assert.assertEquals(5L, pool.getLong("missing", 5L)); // stored by PropertiesFile
+        Assert.assertEquals(5, config.subset("db.").size());
+        Assert.assertEquals(Arrays.asList("db.url"), config.subset("db.").subset("u").getKeys());
+
+        config.setInt("db.pool.max", 50); // the view reads through
+        Assert.assertEquals(Arrays.asList("max", "missing", "size", "timeout"), pool.getNames());
+        config.removeKey("db.pool.size");
+        Assert.assertEquals(Arrays.asList("max", "missing", "timeout"), pool.getNames());
+        Assert.assertFalse(pool.containsKey("size"));
+        Assert.assertEquals(0, config.subset("zzz").size());
+        Assert.assertEquals(config.getPropertiesMap().size(), config.subset("").size());
+
+        ConcurrentPropertiesFile concurrent = new ConcurrentPropertiesFile(file);
+        concurrent.setInt("db.pool.size", 1);
+        Assert.assertEquals(Arrays.asList("size"), concurrent.subset("db.pool.").getNames());
+    }
+
+    @Test
+    public void memoryMappedTest() {
+        PropertiesFile mapped = new PropertiesFile("src/test/resources/test.cfg", PropertiesFile.LoadOption.MEMORY_MAPPED);
+        Assert.assertEquals(cfg.getPropertiesMap(), mapped.getPropertiesMap());
+        Assert.assertEquals(cfg.getHeaderLines(), mapped.getHeaderLines());
+        Assert.assertEquals(" Comment", mapped.getInlineComment("inLineComment"));
+
+        UnmodifiablePropertiesFile unmod = new UnmodifiablePropertiesFile("src/test/resources/test.cfg", PropertiesFile.LoadOption.MEMORY_MAPPED);
+        Assert.assertEquals(cfg.getPropertiesMap(), unmod.getPropertiesMap());
+        Assert.assertEquals(cfg.getFooterLines(), unmod.getFooterLines());
+    }
+
+    @Test
+    public void snapshotTest() throws IOException {
+        File file = File.createTempFile("viutils", ".cfg");
+        file.deleteOnExit();
+        File sidecar = new File(file.getPath().concat(".bin"));
+        sidecar.deleteOnExit();
+        PropertiesFile saved = new PropertiesFile(file, PropertiesFile.LoadOption.SNAPSHOT);
+        saved.addHeaderLines("Snapshot Header");
+        saved.setString("name", "value #! with hash", "A comment");
+        saved.setInt("number", 1);
+        saved.save();
+        Assert.assertTrue(sidecar.exists());
+
+        PropertiesFile loaded = new PropertiesFile(file, PropertiesFile.LoadOption.SNAPSHOT);
+        Assert.assertEquals(saved.getPropertiesMap(), loaded.getPropertiesMap());
+        Assert.assertArrayEquals(new String[]{ ";A comment" }, loaded.getComments("name"));
+        Assert.assertEquals(saved.getHeaderLines(), loaded.getHeaderLines());
+
+        // Same length and modification time, the checksum still tells them apart
+        long modified = file.lastModified();
+        PropertiesFile text = new PropertiesFile(file);
+        text.setInt("number", 2);
+        text.save();
+        Assert.assertTrue(file.setLastModified(modified));
+        loaded.reload();
+        Assert.assertEquals(2, loaded.getInt("number"));
+
+        FileOutputStream out = new FileOutputStream(sidecar);
+        out.write(new byte[]{ 0x56, 0x49, 0x50 });
+        out.close();
+        Assert.assertEquals(2, new PropertiesFile(file, PropertiesFile.LoadOption.SNAPSHOT).getInt("number")); // corrupt, scanned again
+    }
+
+    @Test
+    public void deduplicateTest() {
+        UnmodifiablePropertiesFile first = new UnmodifiablePropertiesFile("src/test/resources/test.cfg", PropertiesFile.LoadOption.DEDUPLICATE);
+        UnmodifiablePropertiesFile second = new UnmodifiablePropertiesFile("src/test/resources/test.cfg", PropertiesFile.LoadOption.DEDUPLICATE,
+                PropertiesFile.LoadOption.LAZY);
+        Assert.assertEquals(cfg.getPropertiesMap(), first.getPropertiesMap());
+        Assert.assertEquals(cfg.getPropertiesMap(), second.getPropertiesMap());
+        for (String key : first.getPropertiesMap().keySet()) {
+            for (String other : second.getPropertiesMap().keySet()) {
+                if (key.equals(other)) {
+                    Assert.assertSame(key, other);
+                }
+            }
+        }
+        Assert.assertSame(first.getString("string_test"), second.getString("string_test"));
+    }
+
+    @Test
+    public void lazyLoadTest() {
+        UnmodifiablePropertiesFile lazy = new UnmodifiablePropertiesFile("src/test/resources/test.cfg", PropertiesFile.LoadOption.LAZY);
+        Assert.assertEquals("value #! not a comment", lazy.getString("escaped_inline_test"));
+        Assert.assertEquals(123456789123456789L, lazy.getLong("long_test"));
+        Assert.assertEquals(" real comment", lazy.getInlineComment("escaped_inline_test"));
+        Assert.assertNull(lazy.getInlineComment("string_test"));
+        Assert.assertArrayEquals(new String[]{ ";Comment for the equals test" }, lazy.getComments("equals_value_test"));
+        Assert.assertEquals(cfg.getPropertiesMap(), lazy.getPropertiesMap());
+        Assert.assertEquals(cfg.getHeaderLines(), lazy.getHeaderLines());
+        Assert.assertEquals(cfg.getFooterLines(), lazy.getFooterLines());
+    }
+
+    @Test
+    public void unmodifiableReloadTest() throws IOException {
+        File file = File.createTempFile("viutils", ".cfg");
+        file.deleteOnExit();
+        PropertiesFile writer = new PropertiesFile(file);
+        writer.setInt("number", 1, "First");
+        writer.save();
+
+        UnmodifiablePropertiesFile reader = new UnmodifiablePropertiesFile(file);
+        Assert.assertEquals(1, reader.getInt("number")); // cached
+        writer.setInt("number", 2);
+        writer.setComments("number", "Second");
+        writer.setBoolean("added", true);
+        writer.save();
+        reader.reload();
+        Assert.assertEquals(2, reader.getInt("number"));
+        Assert.assertArrayEquals(new String[]{ ";Second" }, reader.getComments("number"));
+        Assert.assertTrue(reader.getBoolean("added"));
+    }
+
+    @Test
+    public void watcherTest() throws Exception {
+        File file = File.createTempFile("viutils", ".cfg");
+        file.deleteOnExit();
+        PropertiesFile writer = new PropertiesFile(file);
+        writer.setInt("number", 1);
+        writer.save();
+
+        UnmodifiablePropertiesFile reader = new UnmodifiablePropertiesFile(file);
+        final CountDownLatch reloaded = new CountDownLatch(1);
+        PropertiesFileWatcher.setPollInterval(20, TimeUnit.MILLISECONDS);
+        PropertiesFileWatcher.watch(reader, new PropertiesFileWatcher.Listener() {
+            public void propertiesFileReloaded(AbstractPropertiesFile file) {
+                reloaded.countDown();
+            }
+        });
+        Assert.assertTrue(PropertiesFileWatcher.isWatched(reader));
+        writer.setInt("number", 22); // size changes even if the modification time does not
+        writer.save();
+        Assert.assertTrue(reloaded.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(22, reader.getInt("number"));
+        PropertiesFileWatcher.unwatch(reader);
+        Assert.assertFalse(PropertiesFileWatcher.isWatched(reader));
+    }
+
+    @Test
+    public void saveTest() throws IOException {
+        File file = File.createTempFile("viutils", ".cfg");
+        file.deleteOnExit();
+        PropertiesFile saved = new PropertiesFile(file);
+        saved.setSyncOnSave(true);
+        saved.addHeaderLines("Saved Header");
+        saved.setString("url", "http://host/?a=b");
+        saved.setString("hash", "has #! inside", "A comment");
+        saved.setInt("int", 42);
+        saved.save();
+
+        PropertiesFile loaded = new PropertiesFile(file);
+        Assert.assertEquals(saved.getPropertiesMap(), loaded.getPropertiesMap());
+        Assert.assertArrayEquals(new String[]{ ";A comment" }, loaded.getComments("hash"));
+        Assert.assertEquals(saved.getHeaderLines(), loaded.getHeaderLines());
+
+        saved.setInt("int", 43);
+        saved.setInt("int", 42); // back to what was saved
+        saved.save();
+        loaded.reload();
+        Assert.assertEquals(42, loaded.getInt("int"));
+        File[] leftOver = file.getParentFile().listFiles();
+        for (File left : leftOver) {
+            Assert.assertFalse(left.getName().startsWith(file.getName()) && left.getName().endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    public void writeBehindTest() throws Exception {
+        File file = File.createTempFile("viutils", ".cfg");
+        file.deleteOnExit();
+        PropertiesFile saved = new PropertiesFile(file);
+        saved.setWriteBehind(50, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(saved.isWriteBehind());
+        for (int index = 0; index < 10; index++) {
+            saved.setInt("count", index);
+            saved.save();
+        }
+        Assert.assertFalse(new PropertiesFile(file).containsKey("count")); // not written yet
+
+        long timeout = System.currentTimeMillis() + 5000;
+        while (!new PropertiesFile(file).containsKey("count") && System.currentTimeMillis() < timeout) {
+            Thread.sleep(20);
+        }
+        Assert.assertEquals(9, new PropertiesFile(file).getInt("count"));
+
+        saved.setInt("count", 10);
+        saved.save();
+        saved.flush();
+        Assert.assertEquals(10, new PropertiesFile(file).getInt("count"));
+        saved.disableWriteBehind();
+        Assert.assertFalse(saved.isWriteBehind());
+    }
+
+    @Test
+    public void concurrentTest() throws Exception {
+        ConcurrentPropertiesFile concurrent = new ConcurrentPropertiesFile("src/test/resources/test.cfg");
+        Assert.assertEquals(cfg.getPropertiesMap(), concurrent.getPropertiesMap());
+        Assert.assertEquals(123456789123456789L, concurrent.getLong("long_test"));
+        Assert.assertEquals(" real comment", concurrent.getInlineComment("escaped_inline_test"));
+
+        File file = File.createTempFile("viutils", ".cfg");
+        file.deleteOnExit();
+        final ConcurrentPropertiesFile shared = new ConcurrentPropertiesFile(file);
+        shared.setInt("first", 1);
+        shared.setInt("counter", 0);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] readers = new Thread[4];
+        for (int index = 0; index < readers.length; index++) {
+            readers[index] = new Thread() {
+                public void run() {
+                    try {
+                        for (int read = 0; read < 20000; read++) {
+                            // The counter only goes up, so a cached number that matches its own value lies between the values read around it
+                            int before = Integer.parseInt(shared.getString("counter"));
+                            int number = shared.getInt("counter");
+                            int after = Integer.parseInt(shared.getString("counter"));
+                            if (number < before || number > after) {
+                                throw new AssertionError("getInt returned " + number + " while the value went from " + before + " to " + after);
+                            }
+                        }
+                    }
+                    catch (Throwable thrown) {
+                        failure.compareAndSet(null, thrown);
+                    }
+                }
+            };
+            readers[index].start();
+        }
+        for (int write = 1; write <= 10000; write++) {
+            shared.setString("counter", String.valueOf(write));
+            Assert.assertEquals(write, shared.getInt("counter"));
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        shared.setInt("first", 2); // keeps its place
+        shared.setString("last", "value", "A comment");
+        shared.save();
+        PropertiesFile loaded = new PropertiesFile(file);
+        Assert.assertArrayEquals(new Object[]{ "first", "counter", "last" }, loaded.getPropertiesMap().keySet().toArray());
+        Assert.assertEquals(2, loaded.getInt("first"));
+        Assert.assertArrayEquals(new String[]{ ";A comment" }, loaded.getComments("last"));
+    }
+
+    @Test
+    public void readerTest() {
+        final List<String> keys = new ArrayList<String>();
+        final List<String> headers = new ArrayList<String>();
+        final List<String> pending = new ArrayList<String>();
+        final List<String> equalsComments = new ArrayList<String>();
+        PropertiesReader.read(new File("src/test/resources/test.cfg"), new PropertiesReader.Handler() {
+            @Override
+            public void header(String line) {
+                headers.add(line);
+            }
+
+            @Override
+            public void comment(String line) {
+                pending.add(line);
+            }
+
+            @Override
+            public void property(String key, String value, String inlineComment) {
+                keys.add(key);
+                Assert.assertEquals(cfg.getString(key), value);
+                Assert.assertEquals(cfg.getInlineComment(key), inlineComment);
+                if (key.equals("equals_value_test")) {
+                    equalsComments.addAll(pending);
+                }
+                pending.clear();
+            }
+        });
+        Assert.assertEquals(new ArrayList<String>(cfg.getPropertiesMap().keySet()), keys);
+        Assert.assertEquals(cfg.getHeaderLines(), headers);
+        Assert.assertEquals(Arrays.asList(cfg.getComments("equals_value_test")), equalsComments);
+    }
+
+    @Test
+    public void codecTest() throws IOException {
+        File file = File.createTempFile("viutils", ".cfg");
+        file.deleteOnExit();
+        PropertiesFile codecs = new PropertiesFile(file);
+        UUID id = UUID.randomUUID();
+        codecs.set("id", id, PropertyCodecs.UUID);
+        Assert.assertEquals(id.toString(), codecs.getString("id"));
+        Assert.assertSame(id, codecs.get("id", PropertyCodecs.UUID)); // cached
+        UUID other = UUID.randomUUID();
+        codecs.setString("id", other.toString());
+        UUID decoded = codecs.get("id", PropertyCodecs.UUID);
+        Assert.assertEquals(other, decoded);
+        Assert.assertSame(decoded, codecs.get("id", PropertyCodecs.UUID));
+
+        codecs.setString("unit", "SECONDS");
+        Assert.assertEquals(TimeUnit.SECONDS, codecs.get("unit", PropertyCodecs.forType(TimeUnit.class)));
+        codecs.setString("timeout", "5m");
+        Assert.assertEquals(Long.valueOf(300000L), codecs.get("timeout", PropertyCodecs.DURATION));
+        Assert.assertEquals("90s", PropertyCodecs.DURATION.encode(90000L));
+        Assert.assertEquals(Long.valueOf(1500L), PropertyCodecs.DURATION.decode(PropertyCodecs.DURATION.encode(1500L)));
+
+        codecs.setString("bad", "not-a-uuid");
+        Assert.assertSame(id, codecs.get("bad", PropertyCodecs.UUID, id));
+        Assert.assertSame(id, codecs.get("missing", PropertyCodecs.UUID, id));
+        Assert.assertFalse(codecs.containsKey("missing"));
+    }
+
     @Test
     public void filePathTest() {
         Assert.assertTrue(cfg.getFilePath().contains("src/test/resources/test.cfg") || cfg.getFilePath().contains("src\\test\\resources\\test.cfg"));
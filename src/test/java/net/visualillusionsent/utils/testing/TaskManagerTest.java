@@ -1,9 +1,31 @@
 package net.visualillusionsent.utils.testing;
 
+import net.visualillusionsent.utils.BatchTask;
+import net.visualillusionsent.utils.CronSchedule;
+import net.visualillusionsent.utils.TaskGroup;
 import net.visualillusionsent.utils.TaskManager;
+import net.visualillusionsent.utils.TaskMetrics;
 import org.junit.Assert;
 import org.junit.Test;
 
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Copyright (C) 2015 Visual Illusions Entertainment
  * All Rights Reserved.
@@ -24,6 +46,597 @@ public class TaskManagerTest {
         Assert.assertTrue(TaskManager.removeTask(taskTest));
     }
 
+    @Test
+    public void testWorkerThreads() throws Exception {
+        TaskManager.setWorkerThreads(true);
+        try {
+            Assert.assertTrue(TaskManager.isWorkerThreads());
+            ScheduledFuture<String> name = TaskManager.scheduleDelayedTaskInMillis(new Callable<String>() {
+                public String call() throws Exception {
+                    Thread.sleep(20); // blocking body
+                    return Thread.currentThread().getName();
+                }
+            }, 1);
+            Assert.assertFalse(name.get(5, TimeUnit.SECONDS).startsWith("VIUtils-TaskManager-"));
+
+            final AtomicInteger runs = new AtomicInteger();
+            final CountDownLatch ran = new CountDownLatch(3);
+            Runnable periodic = new Runnable() {
+                public void run() {
+                    runs.incrementAndGet();
+                    ran.countDown();
+                }
+            };
+            TaskManager.scheduleContinuedTaskInMillis(periodic, 1, 5);
+            Assert.assertTrue(ran.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(TaskManager.removeTask(periodic));
+            Thread.sleep(20);
+            int stopped = runs.get();
+            Thread.sleep(30);
+            Assert.assertEquals(stopped, runs.get());
+        }
+        finally {
+            TaskManager.setWorkerThreads(false);
+        }
+    }
+
+    @Test
+    public void testScheduler() throws Exception {
+        ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor();
+        TaskManager.setScheduler(service);
+        try {
+            Assert.assertSame(service, TaskManager.getScheduler());
+            final Thread[] thread = new Thread[1];
+            TaskManager.scheduleDelayedTaskInMillis(new Runnable() {
+                public void run() {
+                    thread[0] = Thread.currentThread();
+                }
+            }, 1).get(5, TimeUnit.SECONDS);
+            Assert.assertFalse(thread[0].getName().startsWith("VIUtils-TaskManager-"));
+        }
+        finally {
+            TaskManager.setScheduler(null);
+            service.shutdown();
+        }
+        Assert.assertNotSame(service, TaskManager.getScheduler());
+
+        int size = TaskManager.getCorePoolSize();
+        TaskManager.setCorePoolSize(16);
+        Assert.assertEquals(16, TaskManager.getCorePoolSize());
+        TaskManager.setCorePoolSize(size);
+    }
+
+    @Test
+    public void testTimingWheel() throws Exception {
+        TaskManager.enableTimingWheel(1, TimeUnit.MILLISECONDS);
+        try {
+            Assert.assertTrue(TaskManager.isTimingWheel());
+            final CountDownLatch ran = new CountDownLatch(1000);
+            final AtomicInteger early = new AtomicInteger();
+            ScheduledFuture<?> last = null;
+            for (int index = 0; index < 1000; index++) {
+                final long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(index % 50);
+                last = TaskManager.scheduleDelayedTaskInMillis(new Runnable() {
+                    public void run() {
+                        if (System.nanoTime() < due) {
+                            early.incrementAndGet();
+                        }
+                        ran.countDown();
+                    }
+                }, 1 + index % 50);
+            }
+            Assert.assertTrue(ran.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(0, early.get());
+            Assert.assertTrue(last.isDone());
+
+            final AtomicInteger cancelledRuns = new AtomicInteger();
+            Runnable cancelled = new Runnable() {
+                public void run() {
+                    cancelledRuns.incrementAndGet();
+                }
+            };
+            ScheduledFuture<Integer> kept = TaskManager.scheduleDelayedTaskInMillis(new Callable<Integer>() {
+                public Integer call() {
+                    return 42;
+                }
+            }, 30);
+            TaskManager.scheduleDelayedTaskInMillis(cancelled, 20);
+            Assert.assertTrue(TaskManager.removeTask(cancelled));
+            Assert.assertEquals(Integer.valueOf(42), kept.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(0, cancelledRuns.get());
+        }
+        finally {
+            TaskManager.disableTimingWheel();
+        }
+        Assert.assertFalse(TaskManager.isTimingWheel());
+    }
+
+    @Test
+    public void testFailedTasks() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable failing = new Runnable() {
+            public void run() {
+                runs.incrementAndGet();
+                throw new IllegalStateException("Expected failure");
+            }
+        };
+        ScheduledFuture<?> once = TaskManager.scheduleDelayedTaskInMillis(failing, 1);
+        try {
+            once.get(5, TimeUnit.SECONDS);
+            Assert.fail("The failure was not reported");
+        }
+        catch (ExecutionException eex) {
+            Assert.assertTrue(eex.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertFalse(TaskManager.removeTask(failing)); // removed itself
+
+        runs.set(0);
+        ScheduledFuture<?> periodic = TaskManager.scheduleContinuedTaskInMillis(failing, 1, 2);
+        try {
+            periodic.get(5, TimeUnit.SECONDS);
+            Assert.fail("The failure was not reported");
+        }
+        catch (ExecutionException eex) {
+            Assert.assertTrue(eex.getCause() instanceof IllegalStateException);
+        }
+        Thread.sleep(20);
+        Assert.assertEquals(1, runs.get()); // stopped at the first failure
+        Assert.assertFalse(TaskManager.removeTask(failing));
+    }
+
+    @Test
+    public void testDuplicateTasks() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        Runnable counted = new Runnable() {
+            public void run() {
+                runs.incrementAndGet();
+            }
+        };
+        int before = TaskManager.getScheduledTaskCount();
+        ScheduledFuture<?> first = TaskManager.scheduleDelayedTaskInSeconds(counted, 30);
+        ScheduledFuture<?> second = TaskManager.scheduleDelayedTaskInSeconds(counted, 30);
+        ScheduledFuture<?> third = TaskManager.scheduleDelayedTaskInMillis(counted, 1);
+        third.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(1, runs.get());
+        Assert.assertTrue(TaskManager.cancelTask(first));
+        Assert.assertFalse(second.isDone()); // its own scheduling
+        Assert.assertEquals(before + 1, TaskManager.getScheduledTaskCount());
+        Assert.assertTrue(TaskManager.removeTask(counted));
+        Assert.assertTrue(second.isCancelled());
+        Assert.assertEquals(before, TaskManager.getScheduledTaskCount());
+        Assert.assertFalse(TaskManager.removeTask(counted));
+    }
+
+    @Test
+    public void testTaskGroups() throws Exception {
+        TaskGroup group = TaskManager.getTaskGroup("plugin");
+        Assert.assertSame(group, TaskManager.getTaskGroup("plugin"));
+        group.setMaxConcurrency(2);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger most = new AtomicInteger();
+        final CountDownLatch ran = new CountDownLatch(10);
+        Runnable limited = new Runnable() {
+            public void run() {
+                int now = running.incrementAndGet();
+                while (most.get() < now && !most.compareAndSet(most.get(), now)) {
+                }
+                try {
+                    Thread.sleep(5);
+                }
+                catch (InterruptedException iex) {
+                }
+                running.decrementAndGet();
+                ran.countDown();
+            }
+        };
+        TaskManager.setWorkerThreads(true);
+        try {
+            for (int index = 0; index < 10; index++) {
+                group.submitTask(limited);
+            }
+            Assert.assertTrue(ran.await(5, TimeUnit.SECONDS));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (group.size() > 0 && System.currentTimeMillis() < deadline) { // Untracked just after the body returns
+                Thread.sleep(1);
+            }
+        }
+        finally {
+            TaskManager.setWorkerThreads(false);
+        }
+        Assert.assertTrue(most.get() <= 2);
+        Assert.assertEquals(0, group.size());
+
+        Runnable idle = new Runnable() {
+            public void run() {
+            }
+        };
+        ScheduledFuture<?> other = TaskManager.scheduleDelayedTaskInSeconds(idle, 30);
+        for (int index = 0; index < 100; index++) {
+            group.scheduleDelayedTask(idle, 30, TimeUnit.SECONDS);
+        }
+        group.scheduleContinuedTask(idle, 30, 30, TimeUnit.SECONDS);
+        Assert.assertEquals(101, group.size());
+        Assert.assertEquals(101, group.cancelAll());
+        Assert.assertEquals(0, group.size());
+        Assert.assertFalse(other.isDone());
+        Assert.assertTrue(TaskManager.cancelTask(other));
+        Assert.assertTrue(TaskManager.removeTaskGroup("plugin"));
+        Assert.assertNotSame(group, TaskManager.getTaskGroup("plugin"));
+        TaskManager.removeTaskGroup("plugin");
+    }
+
+    @Test
+    public void testGroupBacklog() throws Exception {
+        ScheduledThreadPoolExecutor pair = new ScheduledThreadPoolExecutor(2);
+        TaskManager.setScheduler(pair);
+        try {
+            TaskGroup group = TaskManager.getTaskGroup("backlog");
+            group.setMaxConcurrency(1);
+            final AtomicInteger groupRuns = new AtomicInteger();
+            final AtomicInteger seenByTimer = new AtomicInteger(-1);
+            Runnable slow = new Runnable() {
+                public void run() {
+                    try {
+                        Thread.sleep(50);
+                    }
+                    catch (InterruptedException iex) {
+                        return;
+                    }
+                    groupRuns.incrementAndGet();
+                }
+            };
+            for (int index = 0; index < 5; index++) {
+                group.scheduleDelayedTask(slow, 1, TimeUnit.MILLISECONDS); // One runs, the others wait for the slot
+            }
+            ScheduledFuture<?> blocker = TaskManager.scheduleDelayedTask(new Runnable() {
+                public void run() {
+                    try {
+                        Thread.sleep(400); // Keeps the other scheduler thread
+                    }
+                    catch (InterruptedException iex) {
+                        // Cancelled
+                    }
+                }
+            }, 2, TimeUnit.MILLISECONDS);
+            ScheduledFuture<?> timer = TaskManager.scheduleDelayedTask(new Runnable() {
+                public void run() {
+                    seenByTimer.set(groupRuns.get());
+                }
+            }, 75, TimeUnit.MILLISECONDS);
+            timer.get(5, TimeUnit.SECONDS);
+            Assert.assertTrue(seenByTimer.get() < 5); // The backlog did not keep the scheduler thread releasing the slot
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (groupRuns.get() < 5 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            Assert.assertEquals(5, groupRuns.get());
+            TaskManager.cancelTask(blocker);
+            TaskManager.removeTaskGroup("backlog");
+        }
+        finally {
+            TaskManager.setScheduler(null);
+            pair.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCronSchedule() {
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        Calendar calendar = Calendar.getInstance(utc);
+        calendar.clear();
+        calendar.set(2015, Calendar.JUNE, 5, 17, 50); // a Friday
+        long friday = calendar.getTimeInMillis();
+
+        calendar.set(2015, Calendar.JUNE, 8, 9, 0); // the Monday after
+        Assert.assertEquals(calendar.getTimeInMillis(), new CronSchedule("*/15 9-17 * * MON-FRI", utc).next(friday));
+        calendar.set(2015, Calendar.JUNE, 12, 0, 0); // either day field matches
+        Assert.assertEquals(calendar.getTimeInMillis(), new CronSchedule("0 0 13 * fri", utc).next(friday));
+        calendar.set(2015, Calendar.JUNE, 5, 18, 0);
+        Assert.assertEquals(calendar.getTimeInMillis(), new CronSchedule("@hourly", utc).next(friday));
+        calendar.set(2015, Calendar.JUNE, 7, 0, 0);
+        Assert.assertEquals(calendar.getTimeInMillis(), new CronSchedule("0 0 * * 7", utc).next(friday));
+        calendar.set(2016, Calendar.JANUARY, 1, 0, 5);
+        Assert.assertEquals(calendar.getTimeInMillis(), new CronSchedule("5 0 1 JAN *", utc).next(friday));
+
+        for (String invalid : new String[]{ "61 * * * *", "* * * *", "* * 0 * *", "*/0 * * * *", "@often", "* * * FOO *" }) {
+            try {
+                new CronSchedule(invalid);
+                Assert.fail(invalid);
+            }
+            catch (IllegalArgumentException iaex) {
+                // expected
+            }
+        }
+        try {
+            new CronSchedule("0 0 30 2 *", utc).next(friday);
+            Assert.fail("February 30 matched");
+        }
+        catch (IllegalArgumentException iaex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCronEarlyWakeUp() throws Exception {
+        final List<Long> planned = new ArrayList<Long>();
+        final CountDownLatch scheduled = new CountDownLatch(3);
+        ScheduledThreadPoolExecutor early = new ScheduledThreadPoolExecutor(1) {
+            @Override
+            public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+                int count;
+                synchronized (planned) {
+                    planned.add(System.currentTimeMillis() + unit.toMillis(delay));
+                    count = planned.size();
+                }
+                scheduled.countDown();
+                return super.schedule(command, count < 3 ? 0 : delay, unit); // Wake up before the minute boundary
+            }
+        };
+        TaskManager.setScheduler(early);
+        try {
+            ScheduledFuture<?> cron = TaskManager.scheduleCronTask(new TaskTest(), "* * * * *");
+            Assert.assertTrue(scheduled.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(TaskManager.cancelTask(cron));
+            synchronized (planned) {
+                for (int index = 1; index < 3; index++) {
+                    Assert.assertTrue(planned.get(index) - planned.get(index - 1) >= TimeUnit.SECONDS.toMillis(59)); // Never the same minute again
+                }
+            }
+        }
+        finally {
+            TaskManager.setScheduler(null);
+            early.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFixedDelayKeepsRunning() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        ScheduledFuture<?> tiny = TaskManager.scheduleFixedDelayTask(new Runnable() {
+            public void run() {
+                runs.incrementAndGet();
+            }
+        }, 1, 1, TimeUnit.MICROSECONDS);
+        try {
+            for (int check = 0; check < 5; check++) {
+                int before = runs.get();
+                long deadline = System.currentTimeMillis() + 2000;
+                while (runs.get() == before && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(1);
+                }
+                Assert.assertTrue("Fixed delay task stalled after " + before + " runs", runs.get() > before);
+                Thread.sleep(20);
+            }
+            Assert.assertFalse(tiny.isDone());
+        }
+        finally {
+            TaskManager.cancelTask(tiny);
+        }
+    }
+
+    @Test
+    public void testFixedDelayAndSpread() throws Exception {
+        final List<long[]> runs = new ArrayList<long[]>();
+        final CountDownLatch ran = new CountDownLatch(4);
+        Runnable slow = new Runnable() {
+            public void run() {
+                long start = System.nanoTime();
+                try {
+                    Thread.sleep(10);
+                }
+                catch (InterruptedException iex) {
+                    return;
+                }
+                synchronized (runs) {
+                    runs.add(new long[]{ start, System.nanoTime() });
+                }
+                ran.countDown();
+            }
+        };
+        ScheduledFuture<?> delayed = TaskManager.scheduleFixedDelayTask(slow, 1, 5, 2, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(ran.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(TaskManager.cancelTask(delayed));
+        synchronized (runs) {
+            for (int index = 1; index < runs.size(); index++) {
+                Assert.assertTrue(runs.get(index)[0] - runs.get(index - 1)[1] >= TimeUnit.MILLISECONDS.toNanos(5));
+            }
+        }
+
+        Runnable idle = new Runnable() {
+            public void run() {
+            }
+        };
+        List<ScheduledFuture<?>> spread = new ArrayList<ScheduledFuture<?>>();
+        for (int index = 0; index < 8; index++) {
+            spread.add(TaskManager.scheduleSpreadTask(idle, 1, TimeUnit.HOURS));
+        }
+        long[] phases = new long[spread.size()];
+        for (int index = 0; index < phases.length; index++) {
+            phases[index] = spread.get(index).getDelay(TimeUnit.SECONDS);
+            Assert.assertTrue(phases[index] >= 0 && phases[index] <= 3600);
+        }
+        Arrays.sort(phases);
+        for (int index = 1; index < phases.length; index++) {
+            Assert.assertTrue(phases[index] - phases[index - 1] > 3600 / phases.length / 4); // no clumps
+        }
+        Assert.assertTrue(TaskManager.removeTask(idle));
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        TaskManager.setMetricsEnabled(true);
+        Runnable sleeper = new Runnable() {
+            public void run() {
+                try {
+                    Thread.sleep(5);
+                }
+                catch (InterruptedException iex) {
+                    // Cancelled
+                }
+            }
+        };
+        Callable<Object> failure = new Callable<Object>() {
+            public Object call() {
+                throw new IllegalStateException("Expected failure");
+            }
+        };
+        TaskGroup group = TaskManager.getTaskGroup("metrics");
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int index = 0; index < 3; index++) {
+            futures.add(group.scheduleDelayedTask(sleeper, 1, TimeUnit.MILLISECONDS));
+        }
+        futures.add(TaskManager.scheduleDelayedTask(failure, 1, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(TaskManager.cancelTask(TaskManager.scheduleDelayedTask(sleeper, 1, TimeUnit.HOURS)));
+        for (Future<?> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            catch (ExecutionException eex) {
+                Assert.assertTrue(eex.getCause() instanceof IllegalStateException);
+            }
+        }
+
+        TaskMetrics.Counter sleeps = null, failures = null;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) { // A run is recorded just after its future completes
+            TaskMetrics metrics = TaskManager.getMetrics();
+            sleeps = metrics.getTaskCounters().get(sleeper.getClass().getName());
+            failures = metrics.getTaskCounters().get(failure.getClass().getName());
+            if (sleeps != null && sleeps.getRuns() == 3 && failures != null && failures.getRuns() == 1) {
+                break;
+            }
+            Thread.sleep(5);
+        }
+        Assert.assertNotNull(sleeps);
+        Assert.assertNotNull(failures);
+        Assert.assertEquals(3, sleeps.getRuns());
+        Assert.assertEquals(1, sleeps.getCancellations());
+        Assert.assertTrue(sleeps.getTotalTime(TimeUnit.MILLISECONDS) >= 15);
+        Assert.assertEquals(1, failures.getRuns());
+        Assert.assertEquals(1, failures.getFailures());
+        Assert.assertEquals(3, TaskManager.getMetrics().getGroupCounters().get("metrics").getRuns());
+
+        TaskMetrics metrics = TaskManager.getMetrics();
+        Assert.assertTrue(metrics.getCompletedCount() >= 3); // The failed run is only counted as failed
+        Assert.assertTrue(metrics.getFailedCount() >= 1);
+        Assert.assertTrue(metrics.getCancelledCount() >= 1);
+        Assert.assertTrue(metrics.getLag().getCount() >= 4);
+        Assert.assertTrue(metrics.getExecutionTime().getMax(TimeUnit.MILLISECONDS) >= 5);
+        Assert.assertTrue(metrics.getExecutionTime().getPercentile(100, TimeUnit.NANOSECONDS) <= metrics.getExecutionTime().getMax(TimeUnit.NANOSECONDS));
+        Assert.assertTrue(metrics.getExecutionTime().getPercentile(50, TimeUnit.NANOSECONDS) > 0);
+
+        Assert.assertTrue(TaskManager.registerMBean());
+        Assert.assertFalse(TaskManager.registerMBean());
+        ObjectName name = new ObjectName("net.visualillusionsent.utils:type=TaskManager");
+        Assert.assertTrue((Long) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "CompletedCount") >= 3);
+        Assert.assertEquals(Boolean.TRUE, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "MetricsEnabled"));
+        Assert.assertTrue(TaskManager.unregisterMBean());
+        Assert.assertFalse(TaskManager.unregisterMBean());
+
+        TaskManager.setMetricsEnabled(false);
+        Assert.assertEquals(0, TaskManager.getMetrics().getExecutionTime().getCount());
+        TaskManager.removeTaskGroup("metrics");
+    }
+
+    @Test
+    public void testBatches() throws Exception {
+        BatchTask<Integer, Long> sum = new BatchTask<Integer, Long>() {
+            protected Long process(Integer item) {
+                return Long.valueOf(item);
+            }
+
+            protected Long combine(Long left, Long right) {
+                return left + right;
+            }
+        };
+        Assert.assertEquals(Long.valueOf(49995000L), TaskManager.invokeBatch(0, 10000, sum));
+        Future<Long> submitted = TaskManager.submitBatch(0, 10000, sum);
+        Assert.assertFalse(submitted instanceof Runnable); // Only its own threads run a batch
+        Assert.assertEquals(Long.valueOf(49995000L), submitted.get(5, TimeUnit.SECONDS));
+        Assert.assertNull(TaskManager.invokeBatch(5, 5, sum));
+
+        List<String> items = new ArrayList<String>();
+        StringBuilder expected = new StringBuilder();
+        for (int index = 0; index < 1000; index++) {
+            items.add(String.valueOf(index));
+            expected.append(index);
+        }
+        BatchTask<String, String> join = new BatchTask<String, String>() {
+            protected String process(String item) {
+                return item;
+            }
+
+            protected String combine(String left, String right) {
+                return left.concat(right);
+            }
+        };
+        Assert.assertEquals(expected.toString(), TaskManager.invokeBatch(items, join)); // Combined in order
+
+        final BatchTask<Integer, Long> outer = new BatchTask<Integer, Long>() {
+            protected Long process(Integer item) throws Exception {
+                return TaskManager.invokeBatch(0, 100, new BatchTask<Integer, Long>() {
+                    protected Long process(Integer inner) {
+                        return 1L;
+                    }
+
+                    protected Long combine(Long left, Long right) {
+                        return left + right;
+                    }
+                });
+            }
+
+            protected Long combine(Long left, Long right) {
+                return left + right;
+            }
+        };
+        Assert.assertEquals(Long.valueOf(6400L), TaskManager.invokeBatch(0, 64, outer)); // Nested batches still complete
+
+        final AtomicInteger processed = new AtomicInteger();
+        try {
+            TaskManager.invokeBatch(0, 100000, new BatchTask<Integer, Object>() {
+                protected Object process(Integer item) {
+                    processed.incrementAndGet();
+                    if (item == 50) {
+                        throw new IllegalStateException("Expected failure");
+                    }
+                    return null;
+                }
+            });
+            Assert.fail("The batch should have failed");
+        }
+        catch (ExecutionException eex) {
+            Assert.assertTrue(eex.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertTrue(processed.get() < 100000); // Remaining items were skipped
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicInteger interrupted = new AtomicInteger();
+        Future<Object> slow = TaskManager.submitBatch(0, 2, new BatchTask<Integer, Object>() {
+            protected Object process(Integer item) {
+                started.countDown();
+                try {
+                    Thread.sleep(30000);
+                }
+                catch (InterruptedException iex) {
+                    interrupted.incrementAndGet();
+                }
+                return null;
+            }
+
+            protected Object combine(Object left, Object right) {
+                return null;
+            }
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(slow.cancel(true));
+        long timeout = System.currentTimeMillis() + 5000;
+        while (interrupted.get() == 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(interrupted.get() > 0); // Running items were interrupted
+    }
+
     private class TaskTest implements Runnable {
 
         public void run() {